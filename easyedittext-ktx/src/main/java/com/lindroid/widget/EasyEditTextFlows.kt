@@ -0,0 +1,150 @@
+@file:JvmName("EasyEditTextFlows")
+
+package com.lindroid.widget
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.mapNotNull
+import kotlinx.coroutines.launch
+
+/**
+ * @function EasyEditText的Flow扩展
+ * @Description 所有Flow均为冷流，开始收集时添加监听，收集结束时自动移除，可同时被多处收集；
+ * 默认合并（conflate）积压的事件，收集者只会拿到最新的值；
+ * 监听回调在主线程触发，请在主线程中收集。
+ */
+
+/**
+ * 一段文本变化，坐标均相对于变化前的文本
+ * @param start:变化的起始位置
+ * @param before:被替换的字符长度
+ * @param count:新增的字符长度
+ */
+class TextDelta(val start: Int, val before: Int, val count: Int) {
+    override fun toString(): String = "TextDelta(start=$start, before=$before, count=$count)"
+}
+
+/**
+ * 文本内容变化，收集时会先发射当前内容
+ * 注意：发射的是输入框内部的Editable，需要保存时请调用toString()
+ */
+@ExperimentalCoroutinesApi
+fun EasyEditText.textChanges(): Flow<CharSequence> = callbackFlow<CharSequence> {
+    val listener = EasyEditText.AfterTextChangeListener { offer(it) }
+    addAfterTextChangeListener(listener)
+    offer(text ?: "")
+    awaitClose { removeAfterTextChangeListener(listener) }
+}.conflate()
+
+/**
+ * 内容是否为空，收集时会先发射当前状态
+ */
+@ExperimentalCoroutinesApi
+fun EasyEditText.emptyStates(): Flow<Boolean> = callbackFlow<Boolean> {
+    val listener = EasyEditText.OnEmptyChangeListener { offer(it) }
+    addEmptyChangeListener(listener)
+    offer(length() == 0)
+    awaitClose { removeEmptyChangeListener(listener) }
+}.conflate().distinctUntilChanged()
+
+/**
+ * 超过最大输入字符数，发射的是提示文字
+ */
+@ExperimentalCoroutinesApi
+fun EasyEditText.maxCharsEvents(): Flow<String> = callbackFlow<String> {
+    val listener = EasyEditText.OnMaxCharactersListener { _, alertText -> offer(alertText) }
+    addMaxCharsListener(listener)
+    awaitClose { removeMaxCharsListener(listener) }
+}.conflate()
+
+/**
+ * 文本变化的区间
+ * 收集者来不及处理时，积压的多次变化会合并成一个覆盖全部改动的区间，
+ * 每次按键只更新区间的数值，不会创建新的对象。
+ */
+@ExperimentalCoroutinesApi
+fun EasyEditText.deltas(): Flow<TextDelta> = flow {
+    val pending = PendingDelta()
+    emitAll(callbackFlow<Unit> {
+        val listener = EasyEditText.OnTextChangeListener { _, start, before, count ->
+            pending.merge(start, before, count)
+            offer(Unit)
+        }
+        addOnTextChangeListener(listener)
+        awaitClose { removeOnTextChangeListener(listener) }
+    }.conflate().mapNotNull { pending.drain() })
+}
+
+/**
+ * 以StateFlow的形式持有文本内容，随scope取消而注销监听
+ * StateFlow需要不可变的值，因此每次分发时会生成一个String
+ */
+@ExperimentalCoroutinesApi
+fun EasyEditText.textState(scope: CoroutineScope): StateFlow<String> {
+    val state = MutableStateFlow(text?.toString() ?: "")
+    scope.launch(start = CoroutineStart.UNDISPATCHED) {
+        textChanges().collect { state.value = it.toString() }
+    }
+    return state
+}
+
+/**
+ * 以StateFlow的形式持有内容是否为空，随scope取消而注销监听
+ */
+@ExperimentalCoroutinesApi
+fun EasyEditText.emptyState(scope: CoroutineScope): StateFlow<Boolean> {
+    val state = MutableStateFlow(length() == 0)
+    scope.launch(start = CoroutineStart.UNDISPATCHED) {
+        emptyStates().collect { state.value = it }
+    }
+    return state
+}
+
+/**
+ * 尚未被收集的文本变化区间
+ */
+internal class PendingDelta {
+    private var hasValue = false
+    private var start = 0
+    private var before = 0
+    private var count = 0
+
+    @Synchronized
+    fun merge(start: Int, before: Int, count: Int) {
+        if (!hasValue) {
+            this.start = start
+            this.before = before
+            this.count = count
+            hasValue = true
+            return
+        }
+        //以中间文本为基准求两段区间的并集，再分别换算回变化前和变化后的坐标
+        val low = minOf(this.start, start)
+        val high = maxOf(this.start + this.count, start + before)
+        val oldEnd = high - this.count + this.before
+        val newEnd = high + count - before
+        this.start = low
+        this.before = oldEnd - low
+        this.count = newEnd - low
+    }
+
+    @Synchronized
+    fun drain(): TextDelta? {
+        if (!hasValue) {
+            return null
+        }
+        hasValue = false
+        return TextDelta(start, before, count)
+    }
+}
@@ -0,0 +1,134 @@
+package com.lindroid.widget
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.runBlockingTest
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+/**
+ * Flow扩展的注册、注销和合并
+ * 监听在协程取消后仍然注册时，向已关闭的Channel发送会抛出异常，因此取消后的编辑同时检查了注销
+ */
+@ExperimentalCoroutinesApi
+@RunWith(RobolectricTestRunner::class)
+class EasyEditTextFlowsTest {
+    private lateinit var editText: EasyEditText
+
+    @Before
+    fun setUp() {
+        editText = EasyEditText(RuntimeEnvironment.application)
+    }
+
+    @Test
+    fun textChanges_unregistersOnCancel() = runBlockingTest {
+        val received = mutableListOf<String>()
+        val job = launch { editText.textChanges().collect { received += it.toString() } }
+        editText.setText("a")
+        job.cancel()
+        editText.setText("ab")
+        assertEquals(listOf("", "a"), received)
+    }
+
+    @Test
+    fun emptyStates_unregistersOnCancel() = runBlockingTest {
+        val received = mutableListOf<Boolean>()
+        val job = launch { editText.emptyStates().collect { received += it } }
+        editText.setText("a")
+        editText.setText("")
+        job.cancel()
+        editText.setText("b")
+        assertEquals(listOf(true, false, true), received)
+    }
+
+    @Test
+    fun maxCharsEvents_unregistersOnCancel() = runBlockingTest {
+        editText.maxCharacters = 3
+        editText.maxCharsAlert = "too long"
+        val received = mutableListOf<String>()
+        val job = launch { editText.maxCharsEvents().collect { received += it } }
+        editText.setText("abcd")
+        job.cancel()
+        editText.setText("abcde")
+        assertEquals(listOf("too long"), received)
+        assertEquals("abc", editText.text.toString())
+    }
+
+    @Test
+    fun deltas_unregistersOnCancel() = runBlockingTest {
+        val received = mutableListOf<TextDelta>()
+        val job = launch { editText.deltas().collect { received += it } }
+        editText.text!!.append("a")
+        job.cancel()
+        editText.text!!.append("b")
+        assertEquals(1, received.size)
+    }
+
+    @Test
+    fun cancellingOneCollector_keepsOthersRegistered() = runBlockingTest {
+        val first = mutableListOf<String>()
+        val second = mutableListOf<String>()
+        val firstJob = launch { editText.textChanges().collect { first += it.toString() } }
+        val secondJob = launch { editText.textChanges().collect { second += it.toString() } }
+        firstJob.cancel()
+        editText.setText("a")
+        secondJob.cancel()
+        assertEquals(listOf(""), first)
+        assertEquals(listOf("", "a"), second)
+    }
+
+    @Test
+    fun textChanges_conflatesWhileCollectorIsBusy() = runBlockingTest {
+        val received = mutableListOf<String>()
+        val job = launch {
+            editText.textChanges().collect {
+                received += it.toString()
+                delay(100)
+            }
+        }
+        editText.setText("a")
+        editText.setText("ab")
+        editText.setText("abc")
+        advanceTimeBy(100)
+        job.cancel()
+        assertEquals(listOf("", "abc"), received)
+    }
+
+    @Test
+    fun deltas_mergeChangesWhileCollectorIsBusy() = runBlockingTest {
+        val received = mutableListOf<String>()
+        val job = launch {
+            editText.deltas().collect {
+                received += it.toString()
+                delay(100)
+            }
+        }
+        val text = editText.text!!
+        text.append("a")
+        text.append("b")
+        text.append("c")
+        advanceTimeBy(100)
+        job.cancel()
+        assertEquals(
+            listOf("TextDelta(start=0, before=0, count=1)", "TextDelta(start=1, before=0, count=2)"),
+            received
+        )
+    }
+
+    @Test
+    fun textState_followsTextUntilScopeIsCancelled() = runBlockingTest {
+        val job = launch {
+            val state = editText.textState(this)
+            editText.setText("a")
+            assertEquals("a", state.value)
+        }
+        job.cancel()
+        editText.setText("b")
+    }
+}
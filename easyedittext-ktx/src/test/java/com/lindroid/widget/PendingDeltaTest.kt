@@ -0,0 +1,101 @@
+package com.lindroid.widget
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Random
+
+/**
+ * 合并文本变化区间的计算
+ */
+class PendingDeltaTest {
+
+    @Test
+    fun drain_withoutChanges_returnsNull() {
+        assertNull(PendingDelta().drain())
+    }
+
+    @Test
+    fun merge_singleChange_isKeptAsIs() {
+        val pending = PendingDelta()
+        pending.merge(3, 2, 5)
+        assertDelta(pending.drain(), 3, 2, 5)
+        assertNull(pending.drain())
+    }
+
+    @Test
+    fun merge_consecutiveInserts() {
+        val pending = PendingDelta()
+        //"a" -> "ab" -> "abc"
+        pending.merge(1, 0, 1)
+        pending.merge(2, 0, 1)
+        assertDelta(pending.drain(), 1, 0, 2)
+    }
+
+    @Test
+    fun merge_insertBeforeEarlierChange() {
+        val pending = PendingDelta()
+        //"hello" -> "hellXo" -> "YhellXo"
+        pending.merge(4, 0, 1)
+        pending.merge(0, 0, 1)
+        assertDelta(pending.drain(), 0, 4, 6)
+    }
+
+    @Test
+    fun merge_deleteInsertedText() {
+        val pending = PendingDelta()
+        //"abc" -> "abXYc" -> "abc"
+        pending.merge(2, 0, 2)
+        pending.merge(2, 2, 0)
+        assertDelta(pending.drain(), 2, 0, 0)
+    }
+
+    @Test
+    fun merge_replaceAcrossEarlierChange() {
+        val pending = PendingDelta()
+        //"abcdef" -> "abXf"（替换cde） -> "aZf"（替换bX）
+        pending.merge(2, 3, 1)
+        pending.merge(1, 2, 1)
+        assertDelta(pending.drain(), 1, 4, 1)
+    }
+
+    /**
+     * 随机编辑若干次后，用合并的区间替换原文本必须得到最终文本
+     */
+    @Test
+    fun merge_coversComposedRandomEdits() {
+        val random = Random(42)
+        repeat(10000) {
+            val original = randomText(random, random.nextInt(12), "abcdef")
+            val text = StringBuilder(original)
+            val pending = PendingDelta()
+            repeat(1 + random.nextInt(5)) {
+                val start = random.nextInt(text.length + 1)
+                val before = random.nextInt(text.length - start + 1)
+                val count = random.nextInt(4)
+                text.replace(start, start + before, randomText(random, count, "XYZ"))
+                pending.merge(start, before, count)
+            }
+            val delta = pending.drain()!!
+            val message = "original=$original, final=$text, $delta"
+            assertTrue(message, delta.start >= 0)
+            assertTrue(message, delta.start + delta.before <= original.length)
+            assertTrue(message, delta.start + delta.count <= text.length)
+            val rebuilt = original.substring(0, delta.start) +
+                    text.substring(delta.start, delta.start + delta.count) +
+                    original.substring(delta.start + delta.before)
+            assertEquals(message, text.toString(), rebuilt)
+        }
+    }
+
+    private fun randomText(random: Random, length: Int, alphabet: String): String {
+        val builder = StringBuilder(length)
+        repeat(length) { builder.append(alphabet[random.nextInt(alphabet.length)]) }
+        return builder.toString()
+    }
+
+    private fun assertDelta(delta: TextDelta?, start: Int, before: Int, count: Int) {
+        assertEquals("TextDelta(start=$start, before=$before, count=$count)", delta.toString())
+    }
+}
@@ -0,0 +1,350 @@
+package com.lindroid.widget;
+
+import android.text.Editable;
+import android.text.InputFilter;
+import android.text.Selection;
+import android.text.Spanned;
+
+/**
+ * @function 大段文本的后台粘贴
+ * @Description 换行规范化、字符规则过滤和最大输入字符数的截断都在后台线程完成，
+ * 结果再按帧分段插入，避免一次性插入大段文本阻塞主线程。
+ * 每段的字符数按上一段的插入耗时调整：没有换行的长文本每次插入都要重排整个段落，段落越长每段越小。
+ * 分段插入时不分发内容监听，以免每段都复制一次全文，粘贴结束后统一分发一次。
+ * 插入位置用一个零长度的span标记，用户在粘贴过程中编辑其他位置也不会错位。
+ * 输入框自己的字符规则、截断和关键词拦截已在后台完成，插入时跳过这些InputFilter，
+ * 只经过调用方设置的InputFilter，实际插入的字符数按标记的移动计算。
+ */
+final class AsyncPaster implements Runnable {
+    /**
+     * 第一帧插入的字符数
+     */
+    static final int CHUNK_SIZE = 8 * 1024;
+
+    static final int MIN_CHUNK_SIZE = 256;
+
+    static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 每帧用于插入的时间，单位纳秒
+     */
+    private static final long FRAME_BUDGET_NANOS = 8L * 1000 * 1000;
+
+    /**
+     * 后台处理时每隔多少字符检查一次是否取消
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 4 * 1024;
+
+    private final EasyEditText editText;
+
+    private final ListenerList<EasyEditText.OnPasteProgressListener> listeners;
+
+    private final CharSequence source;
+
+    private final CharacterPolicy policy;
+
+    /**
+     * 拦截关键词时使用的词典，不拦截时为null
+     */
+    private final KeywordDictionary keywords;
+
+    /**
+     * 插入位置前后可能与粘贴内容组成关键词的文本
+     */
+    private String prefix = "";
+    private String suffix = "";
+
+    /**
+     * 还能插入的字符数，Integer.MAX_VALUE表示不限制
+     */
+    private final int room;
+
+    private volatile boolean cancelled = false;
+
+    private boolean finished = false;
+
+    private boolean truncated = false;
+
+    private String result;
+
+    /**
+     * result中已处理到的位置
+     */
+    private int offset = 0;
+
+    /**
+     * 实际插入的字符数，调用方的InputFilter过滤掉的字符不计入
+     */
+    private int inserted = 0;
+
+    /**
+     * 下一帧插入的字符数
+     */
+    private int chunkSize = CHUNK_SIZE;
+
+    /**
+     * 是否正在插入一段内容，此时输入框不分发内容监听
+     */
+    private boolean inserting = false;
+
+    /**
+     * 分段插入后还没有分发内容监听
+     */
+    private boolean contentPending = false;
+
+    private final Runnable insertStep = new Runnable() {
+        @Override
+        public void run() {
+            insertChunk();
+        }
+    };
+
+    private final Runnable processed = new Runnable() {
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            dispatchProgress();
+            insertChunk();
+        }
+    };
+
+    AsyncPaster(EasyEditText editText, ListenerList<EasyEditText.OnPasteProgressListener> listeners,
+                CharSequence source, CharacterPolicy policy, KeywordDictionary keywords, int room) {
+        this.editText = editText;
+        this.listeners = listeners;
+        this.source = source;
+        this.policy = policy;
+        this.keywords = keywords == null || keywords.size() == 0 ? null : keywords;
+        this.room = room;
+    }
+
+    /**
+     * 在主线程调用：删除选中的内容，标记插入位置，然后交给后台线程处理
+     */
+    void start() {
+        Editable text = editText.getText();
+        if (text == null) {
+            finish(true);
+            return;
+        }
+        int selStart = Math.max(0, Math.min(Selection.getSelectionStart(text), Selection.getSelectionEnd(text)));
+        int selEnd = Math.max(0, Math.max(Selection.getSelectionStart(text), Selection.getSelectionEnd(text)));
+        if (selEnd > selStart) {
+            text.delete(selStart, selEnd);
+        }
+        text.setSpan(this, selStart, selStart, Spanned.SPAN_POINT_POINT);
+        if (keywords != null) {
+            int reach = keywords.getMaxLength() - 1;
+            prefix = text.subSequence(Math.max(0, selStart - reach), selStart).toString();
+            suffix = text.subSequence(selStart, Math.min(text.length(), selStart + reach)).toString();
+        }
+        for (Object listener : listeners.snapshot()) {
+            ((EasyEditText.OnPasteProgressListener) listener).onPasteStarted();
+        }
+        editText.getBackgroundExecutor().execute(this);
+    }
+
+    /**
+     * 后台线程：规范化换行、过滤字符、截断并检查关键词
+     */
+    @Override
+    public void run() {
+        int length = source.length();
+        StringBuilder out = new StringBuilder(Math.min(length, room));
+        int i = 0;
+        int nextCheck = 0;
+        while (i < length) {
+            if (i >= nextCheck) {
+                if (cancelled) {
+                    return;
+                }
+                nextCheck = i + CANCEL_CHECK_INTERVAL;
+            }
+            int codePoint = Character.codePointAt(source, i);
+            int charCount = Character.charCount(codePoint);
+            i += charCount;
+            if (codePoint == '\r') {
+                if (i < length && source.charAt(i) == '\n') {
+                    continue;
+                }
+                codePoint = '\n';
+            } else if (codePoint == 0) {
+                continue;
+            }
+            if (policy != null && !policy.accepts(codePoint)) {
+                continue;
+            }
+            if (out.length() + charCount > room) {
+                truncated = true;
+                break;
+            }
+            out.appendCodePoint(codePoint);
+        }
+        //与同步粘贴一致，会产生关键词时整段拒绝
+        if (keywords != null && containsKeyword(out)) {
+            out.setLength(0);
+            truncated = false;
+        }
+        result = out.toString();
+        editText.post(processed);
+    }
+
+    private boolean containsKeyword(CharSequence content) {
+        StringBuilder window = new StringBuilder(prefix.length() + content.length() + suffix.length());
+        window.append(prefix).append(content).append(suffix);
+        KeywordCheck check = new KeywordCheck(prefix.length(), prefix.length() + content.length());
+        keywords.scan(window, 0, window.length(), check);
+        return check.found;
+    }
+
+    /**
+     * 主线程：插入一段内容，未完成时在下一帧继续
+     */
+    private void insertChunk() {
+        if (cancelled || finished) {
+            return;
+        }
+        Editable text = editText.getText();
+        int at = text == null ? -1 : text.getSpanStart(this);
+        if (at < 0) {
+            finish(true);
+            return;
+        }
+        int end = Math.min(offset + chunkSize, result.length());
+        boolean last = end == result.length();
+        //粘贴过程中用户可能继续输入，按当前剩余的字数再截断一次
+        int maxCharacters = editText.getMaxCharacters();
+        if (maxCharacters > 0 && editText.isMaxCharsLimited() && end - offset > maxCharacters - text.length()) {
+            end = offset + Math.max(0, maxCharacters - text.length());
+            last = true;
+            truncated = true;
+        }
+        if (end > offset && end < result.length() && Character.isHighSurrogate(result.charAt(end - 1))) {
+            end--;
+        }
+        if (end > offset) {
+            //光标还在插入位置时才跟随，用户移走光标后不再拉回
+            boolean follow = Selection.getSelectionStart(text) == at && Selection.getSelectionEnd(text) == at;
+            InputFilter[] filters = text.getFilters();
+            text.setFilters(editText.getExternalFilters(filters));
+            long begin = System.nanoTime();
+            inserting = true;
+            try {
+                text.replace(at, at, result, offset, end);
+            } finally {
+                inserting = false;
+                text.setFilters(filters);
+            }
+            adjustChunkSize(end - offset, System.nanoTime() - begin);
+            offset = end;
+            contentPending = true;
+            int cursor = text.getSpanStart(this);
+            if (cursor >= 0) {
+                inserted += cursor - at;
+                if (follow) {
+                    Selection.setSelection(text, cursor);
+                }
+            }
+            dispatchProgress();
+        }
+        if (!last) {
+            editText.postOnAnimation(insertStep);
+        } else {
+            finish(false);
+        }
+    }
+
+    /**
+     * 按本段的耗时估算一帧能插入的字符数，每次最多增大一倍
+     */
+    private void adjustChunkSize(int count, long elapsedNanos) {
+        long next = elapsedNanos <= 0 ? chunkSize * 2L : count * FRAME_BUDGET_NANOS / elapsedNanos;
+        next = Math.min(next, chunkSize * 2L);
+        chunkSize = (int) Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, next));
+    }
+
+    private void dispatchProgress() {
+        for (Object listener : listeners.snapshot()) {
+            ((EasyEditText.OnPasteProgressListener) listener).onPasteProgress(inserted, result.length());
+        }
+    }
+
+    /**
+     * 取消粘贴，已经插入的内容会被保留
+     */
+    void cancel() {
+        if (finished) {
+            return;
+        }
+        cancelled = true;
+        editText.removeCallbacks(processed);
+        editText.removeCallbacks(insertStep);
+        finish(true);
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 是否正在插入一段内容
+     */
+    boolean isInserting() {
+        return inserting;
+    }
+
+    /**
+     * 实际插入的字符数
+     */
+    int getInserted() {
+        return inserted;
+    }
+
+    private void finish(boolean cancelled) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        Editable text = editText.getText();
+        if (text != null) {
+            text.removeSpan(this);
+        }
+        if (contentPending) {
+            contentPending = false;
+            editText.dispatchContentChanged();
+        }
+        if (truncated && !cancelled) {
+            editText.notifyMaxCharsExceeded();
+        }
+        for (Object listener : listeners.snapshot()) {
+            ((EasyEditText.OnPasteProgressListener) listener).onPasteFinished(cancelled);
+        }
+    }
+
+    /**
+     * 查找与粘贴内容相交的关键词
+     */
+    private static final class KeywordCheck implements KeywordDictionary.Visitor {
+        private final int start;
+
+        private final int end;
+
+        boolean found = false;
+
+        KeywordCheck(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean onMatch(int start, int end) {
+            if (start < this.end && end > this.start) {
+                found = true;
+                return false;
+            }
+            return true;
+        }
+    }
+}
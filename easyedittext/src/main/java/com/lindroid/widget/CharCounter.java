@@ -0,0 +1,183 @@
+package com.lindroid.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.TextPaint;
+
+/**
+ * @function 输入框内绘制的字数统计
+ * @Description 数字直接写入复用的char[]，不会生成String；
+ * 字体高度和按最大字数预留的宽度只在样式变化时计算一次，绘制区域大小固定，只需要刷新这块区域
+ */
+final class CharCounter {
+    static final int POSITION_BOTTOM_END = 0;
+    static final int POSITION_BOTTOM_START = 1;
+    static final int POSITION_TOP_END = 2;
+    static final int POSITION_TOP_START = 3;
+
+    private static final char[] SEPARATOR = {' ', '/', ' '};
+
+    private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    /**
+     * 两个int最多各11个字符，加上分隔符
+     */
+    private final char[] chars = new char[11 * 2 + SEPARATOR.length];
+
+    private int charCount = 0;
+
+    private int count = -1;
+
+    private int max = 0;
+
+    private int color;
+
+    private int warningColor;
+
+    /**
+     * 剩余字数小于或等于该值时使用警告颜色
+     */
+    private int warningThreshold;
+
+    private int position = POSITION_BOTTOM_END;
+
+    private int height;
+
+    private int baseline;
+
+    private int reservedWidth;
+
+    CharCounter(float textSize, int color, int warningColor, int warningThreshold) {
+        paint.setTextSize(textSize);
+        this.color = color;
+        this.warningColor = warningColor;
+        this.warningThreshold = warningThreshold;
+        measure();
+    }
+
+    /**
+     * 更新字数
+     *
+     * @return 显示内容有变化时返回true
+     */
+    boolean update(int count, int max) {
+        if (this.count == count && this.max == max) {
+            return false;
+        }
+        boolean maxChanged = this.max != max;
+        this.count = count;
+        this.max = max;
+        int length = writeInt(count, chars, 0);
+        if (max > 0) {
+            System.arraycopy(SEPARATOR, 0, chars, length, SEPARATOR.length);
+            length += SEPARATOR.length;
+            length = writeInt(max, chars, length);
+        }
+        charCount = length;
+        if (maxChanged) {
+            measure();
+        }
+        return true;
+    }
+
+    /**
+     * 将非负整数写入数组，返回写入后的位置
+     */
+    private static int writeInt(int value, char[] dest, int offset) {
+        if (value < 0) {
+            value = 0;
+        }
+        int digits = 1;
+        for (int v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int end = offset + digits;
+        for (int i = end - 1; i >= offset; i--) {
+            dest[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * 计算字体高度和预留宽度，预留宽度按“最大字数 / 最大字数”计算，字数变化时区域大小不变
+     */
+    private void measure() {
+        Paint.FontMetricsInt metrics = paint.getFontMetricsInt();
+        height = metrics.descent - metrics.ascent;
+        baseline = -metrics.ascent;
+        char[] widest = new char[chars.length];
+        int reference = max > 0 ? max : 99999;
+        int length = writeInt(reference, widest, 0);
+        if (max > 0) {
+            System.arraycopy(SEPARATOR, 0, widest, length, SEPARATOR.length);
+            length += SEPARATOR.length;
+            length = writeInt(max, widest, length);
+        }
+        reservedWidth = (int) Math.ceil(paint.measureText(widest, 0, length));
+    }
+
+    void draw(Canvas canvas, int left, int top, int right, boolean alignLeft) {
+        paint.setColor(max > 0 && max - count <= warningThreshold ? warningColor : color);
+        float width = paint.measureText(chars, 0, charCount);
+        float x = alignLeft ? left : right - width;
+        canvas.drawText(chars, 0, charCount, x, top + baseline, paint);
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getReservedWidth() {
+        return reservedWidth;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    void setPosition(int position) {
+        this.position = position;
+    }
+
+    boolean isTop() {
+        return position == POSITION_TOP_END || position == POSITION_TOP_START;
+    }
+
+    boolean isStart() {
+        return position == POSITION_BOTTOM_START || position == POSITION_TOP_START;
+    }
+
+    int getColor() {
+        return color;
+    }
+
+    void setColor(int color) {
+        this.color = color;
+    }
+
+    int getWarningColor() {
+        return warningColor;
+    }
+
+    void setWarningColor(int warningColor) {
+        this.warningColor = warningColor;
+    }
+
+    int getWarningThreshold() {
+        return warningThreshold;
+    }
+
+    void setWarningThreshold(int warningThreshold) {
+        this.warningThreshold = warningThreshold;
+    }
+
+    float getTextSize() {
+        return paint.getTextSize();
+    }
+
+    void setTextSize(float textSize) {
+        paint.setTextSize(textSize);
+        measure();
+    }
+}
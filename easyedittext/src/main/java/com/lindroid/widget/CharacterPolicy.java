@@ -0,0 +1,209 @@
+package com.lindroid.widget;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * @function 字符白名单/黑名单
+ * @Description 基本多文种平面（BMP）内的字符编译成65536位的查找表，每个字符只需一次位运算；
+ * 辅助平面的字符（如emoji）按区间保存，二分查找。
+ * 设置了白名单时只允许白名单内的字符，否则允许所有字符；黑名单优先于白名单。
+ */
+public final class CharacterPolicy {
+    /**
+     * 数字0-9
+     */
+    public static final int PRESET_DIGITS = 1;
+    /**
+     * 英文字母a-z、A-Z
+     */
+    public static final int PRESET_LETTERS = 1 << 1;
+    /**
+     * 可打印的ASCII字符
+     */
+    public static final int PRESET_ASCII = 1 << 2;
+    /**
+     * 空格、制表符和换行
+     */
+    public static final int PRESET_WHITESPACE = 1 << 3;
+
+    private static final int BMP_SIZE = 0x10000;
+
+    private final long[] bmp;
+    /**
+     * 辅助平面的白名单区间，按[from, to]成对排列
+     */
+    private final int[] supplementaryAllowed;
+    /**
+     * 辅助平面的黑名单区间，按[from, to]成对排列
+     */
+    private final int[] supplementaryDenied;
+
+    private final boolean allowByDefault;
+
+    private CharacterPolicy(long[] bmp, int[] supplementaryAllowed, int[] supplementaryDenied, boolean allowByDefault) {
+        this.bmp = bmp;
+        this.supplementaryAllowed = supplementaryAllowed;
+        this.supplementaryDenied = supplementaryDenied;
+        this.allowByDefault = allowByDefault;
+    }
+
+    /**
+     * 是否允许输入该字符
+     */
+    public boolean accepts(int codePoint) {
+        if (codePoint < BMP_SIZE) {
+            return (bmp[codePoint >>> 6] & (1L << codePoint)) != 0;
+        }
+        if (inRanges(supplementaryDenied, codePoint)) {
+            return false;
+        }
+        return allowByDefault || inRanges(supplementaryAllowed, codePoint);
+    }
+
+    private static boolean inRanges(int[] ranges, int codePoint) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ranges[mid * 2 + 1] < codePoint) {
+                low = mid + 1;
+            } else if (ranges[mid * 2] > codePoint) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 字符规则构建器
+     */
+    public static final class Builder {
+        private final long[] allowed = new long[BMP_SIZE / 64];
+        private final long[] denied = new long[BMP_SIZE / 64];
+        private int[] supplementaryAllowed = new int[0];
+        private int[] supplementaryDenied = new int[0];
+        private boolean hasAllowRule = false;
+
+        /**
+         * 允许预设的字符集合
+         *
+         * @param presets:PRESET_开头的常量，可以用|组合
+         */
+        public Builder allowPreset(int presets) {
+            if ((presets & PRESET_DIGITS) != 0) {
+                allowRange('0', '9');
+            }
+            if ((presets & PRESET_LETTERS) != 0) {
+                allowRange('a', 'z');
+                allowRange('A', 'Z');
+            }
+            if ((presets & PRESET_ASCII) != 0) {
+                allowRange(0x20, 0x7E);
+            }
+            if ((presets & PRESET_WHITESPACE) != 0) {
+                allow(" \t\n");
+            }
+            return this;
+        }
+
+        /**
+         * 允许字符串中的每个字符
+         */
+        public Builder allow(@NonNull CharSequence chars) {
+            hasAllowRule = true;
+            for (int i = 0; i < chars.length(); ) {
+                int codePoint = Character.codePointAt(chars, i);
+                allowRange(codePoint, codePoint);
+                i += Character.charCount(codePoint);
+            }
+            return this;
+        }
+
+        /**
+         * 允许[from, to]区间内的字符
+         */
+        public Builder allowRange(int from, int to) {
+            hasAllowRule = true;
+            supplementaryAllowed = add(allowed, supplementaryAllowed, from, to);
+            return this;
+        }
+
+        /**
+         * 禁止字符串中的每个字符
+         */
+        public Builder deny(@NonNull CharSequence chars) {
+            for (int i = 0; i < chars.length(); ) {
+                int codePoint = Character.codePointAt(chars, i);
+                denyRange(codePoint, codePoint);
+                i += Character.charCount(codePoint);
+            }
+            return this;
+        }
+
+        /**
+         * 禁止[from, to]区间内的字符
+         */
+        public Builder denyRange(int from, int to) {
+            supplementaryDenied = add(denied, supplementaryDenied, from, to);
+            return this;
+        }
+
+        private static int[] add(long[] bits, int[] supplementary, int from, int to) {
+            if (from > to || from < 0 || to > Character.MAX_CODE_POINT) {
+                throw new IllegalArgumentException("Invalid range: " + from + "-" + to);
+            }
+            for (int c = from; c <= to && c < BMP_SIZE; c++) {
+                bits[c >>> 6] |= 1L << c;
+            }
+            if (to >= BMP_SIZE) {
+                int[] ranges = Arrays.copyOf(supplementary, supplementary.length + 2);
+                ranges[ranges.length - 2] = Math.max(from, BMP_SIZE);
+                ranges[ranges.length - 1] = to;
+                return ranges;
+            }
+            return supplementary;
+        }
+
+        @NonNull
+        public CharacterPolicy build() {
+            long[] bmp = new long[BMP_SIZE / 64];
+            for (int i = 0; i < bmp.length; i++) {
+                long base = hasAllowRule ? allowed[i] : -1L;
+                bmp[i] = base & ~denied[i];
+            }
+            return new CharacterPolicy(bmp, merge(supplementaryAllowed), merge(supplementaryDenied), !hasAllowRule);
+        }
+
+        /**
+         * 排序并合并重叠的区间，便于二分查找
+         */
+        private static int[] merge(int[] ranges) {
+            int count = ranges.length / 2;
+            if (count <= 1) {
+                return ranges.clone();
+            }
+            long[] packed = new long[count];
+            for (int i = 0; i < count; i++) {
+                packed[i] = ((long) ranges[i * 2] << 32) | ranges[i * 2 + 1];
+            }
+            Arrays.sort(packed);
+            int[] merged = new int[ranges.length];
+            int size = 0;
+            for (long range : packed) {
+                int from = (int) (range >>> 32);
+                int to = (int) range;
+                if (size > 0 && from <= merged[size - 1] + 1) {
+                    merged[size - 1] = Math.max(merged[size - 1], to);
+                } else {
+                    merged[size++] = from;
+                    merged[size++] = to;
+                }
+            }
+            return Arrays.copyOf(merged, size);
+        }
+    }
+}
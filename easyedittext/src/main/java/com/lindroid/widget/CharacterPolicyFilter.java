@@ -0,0 +1,113 @@
+package com.lindroid.widget;
+
+import android.text.InputFilter;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+
+/**
+ * @function 按字符规则和最大输入字符数过滤输入
+ * @Description 只处理新输入的片段，过滤字符和截断到最大输入字符数在同一次遍历中完成；
+ * 没有需要去掉的字符时直接返回null，不会复制文本。
+ * 输入带有span（如输入法的composing span）时，结果保留这些span
+ */
+final class CharacterPolicyFilter implements InputFilter {
+    private final EasyEditText editText;
+
+    private CharacterPolicy policy;
+
+    CharacterPolicyFilter(EasyEditText editText) {
+        this.editText = editText;
+    }
+
+    CharacterPolicy getPolicy() {
+        return policy;
+    }
+
+    void setPolicy(CharacterPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public CharSequence filter(CharSequence source, int start, int end, Spanned dest, int dstart, int dend) {
+        if (start == end) {
+            return null;
+        }
+        int room = Integer.MAX_VALUE;
+        int maxCharacters = editText.getMaxCharacters();
+        if (maxCharacters > 0 && editText.isMaxCharsLimited()) {
+            room = Math.max(0, maxCharacters - (dest.length() - (dend - dstart)));
+        }
+        CharacterPolicy policy = this.policy;
+        boolean spanned = source instanceof Spanned;
+        //没有span时直接拼接保留的字符，有span时最后再从副本中删除被拒绝的字符
+        StringBuilder kept = null;
+        boolean rejected = false;
+        int keptLength = 0;
+        boolean truncated = false;
+        int i = start;
+        while (i < end) {
+            int codePoint = codePointAt(source, i, end);
+            int charCount = Character.charCount(codePoint);
+            if (policy == null || policy.accepts(codePoint)) {
+                if (keptLength + charCount > room) {
+                    truncated = true;
+                    break;
+                }
+                if (kept != null) {
+                    kept.appendCodePoint(codePoint);
+                }
+                keptLength += charCount;
+            } else if (!rejected) {
+                //遇到第一个被拒绝的字符时才开始复制
+                rejected = true;
+                if (!spanned) {
+                    kept = new StringBuilder(Math.min(end - start, room));
+                    kept.append(source, start, i);
+                }
+            }
+            i += charCount;
+        }
+        if (truncated) {
+            editText.notifyMaxCharsExceeded();
+        }
+        if (rejected) {
+            return spanned ? removeRejected((Spanned) source, start, i, policy) : kept;
+        }
+        if (truncated) {
+            return source.subSequence(start, start + keptLength);
+        }
+        return null;
+    }
+
+    /**
+     * 复制[start, end)并删除被拒绝的字符，从后往前删除，span的位置会随之调整
+     */
+    private static CharSequence removeRejected(Spanned source, int start, int end, CharacterPolicy policy) {
+        SpannableStringBuilder filtered = new SpannableStringBuilder(source, start, end);
+        int i = filtered.length();
+        while (i > 0) {
+            int codePoint = Character.codePointBefore(filtered, i);
+            int charCount = Character.charCount(codePoint);
+            i -= charCount;
+            if (!policy.accepts(codePoint)) {
+                filtered.delete(i, i + charCount);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * 与Character.codePointAt()相同，但不会读取limit之后的字符，
+     * 代理对被片段边界截开时，只返回高位代理本身
+     */
+    private static int codePointAt(CharSequence source, int index, int limit) {
+        char high = source.charAt(index);
+        if (Character.isHighSurrogate(high) && index + 1 < limit) {
+            char low = source.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return high;
+    }
+}
@@ -1,26 +1,42 @@
 package com.lindroid.widget;
 
 import android.annotation.SuppressLint;
+import android.content.ClipData;
+import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LevelListDrawable;
+import android.os.AsyncTask;
+import android.support.annotation.ColorInt;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.NonNull;
 import android.support.v4.content.ContextCompat;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.AppCompatEditText;
 import android.text.Editable;
-import android.text.TextUtils;
+import android.text.InputFilter;
 import android.text.TextWatcher;
-import android.text.method.HideReturnsTransformationMethod;
 import android.text.method.PasswordTransformationMethod;
+import android.text.method.SingleLineTransformationMethod;
+import android.text.method.TransformationMethod;
 import android.util.AttributeSet;
+import android.util.TypedValue;
 import android.view.MotionEvent;
+import android.view.ViewGroup;
 import android.view.inputmethod.EditorInfo;
 import android.widget.Toast;
 import com.lindroid.view.R;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
 /**
  * @author Lin
  * @date 2019/4/11
@@ -28,6 +44,23 @@ import org.jetbrains.annotations.NotNull;
  * @Description
  */
 public class EasyEditText extends AppCompatEditText {
+    /**
+     * 字数统计显示在底部末端
+     */
+    public static final int COUNTER_BOTTOM_END = CharCounter.POSITION_BOTTOM_END;
+    /**
+     * 字数统计显示在底部起始端
+     */
+    public static final int COUNTER_BOTTOM_START = CharCounter.POSITION_BOTTOM_START;
+    /**
+     * 字数统计显示在顶部末端
+     */
+    public static final int COUNTER_TOP_END = CharCounter.POSITION_TOP_END;
+    /**
+     * 字数统计显示在顶部起始端
+     */
+    public static final int COUNTER_TOP_START = CharCounter.POSITION_TOP_START;
+
     /**
      * 一键清空按钮图片Id
      */
@@ -76,6 +109,28 @@ public class EasyEditText extends AppCompatEditText {
      */
     private boolean isPwdType = false;
 
+    /**
+     * 明暗文共用的密码转换，切换时不重设文本
+     */
+    private final PasswordToggleTransformation passwordToggle = new PasswordToggleTransformation();
+
+    /**
+     * 明暗文切换图标，level为0时是暗文图标，为1时是明文图标
+     */
+    private LevelListDrawable toggleDrawable = null;
+
+    /**
+     * 显示明文后自动切回暗文的延时，小于或等于0表示不自动切回
+     */
+    private long autoMaskDelay = 0;
+
+    private final Runnable autoMaskTask = new Runnable() {
+        @Override
+        public void run() {
+            setContentDisplayed(false);
+        }
+    };
+
     /**
      * 达到最大输入字符数时是否限制输入
      */
@@ -91,6 +146,12 @@ public class EasyEditText extends AppCompatEditText {
 
     private boolean isEmpty = false;
 
+    /**
+     * 超过最大输入字符数且InputFilter没有截断时（如调用方覆盖了setFilters()），
+     * 等所有onTextChanged回调结束后在afterTextChanged中截断
+     */
+    private boolean pendingTruncate = false;
+
     private TextWatcher textWatcher = null;
 
     private OnContentChangeListener contentListener = null;
@@ -105,6 +166,89 @@ public class EasyEditText extends AppCompatEditText {
 
     private OnEmptyChangeListener emptyListener = null;
 
+    private final ListenerList<BeforeTextChangeListener> beforeListeners = new ListenerList<>();
+
+    private final ListenerList<OnTextChangeListener> changeListeners = new ListenerList<>();
+
+    private final ListenerList<AfterTextChangeListener> afterListeners = new ListenerList<>();
+
+    private final ListenerList<OnContentChangeListener> contentListeners = new ListenerList<>();
+
+    private final ListenerList<OnMaxCharactersListener> maxListeners = new ListenerList<>();
+
+    private final ListenerList<OnEmptyChangeListener> emptyListeners = new ListenerList<>();
+
+    private OnKeywordMatchListener keywordListener = null;
+
+    private final ListenerList<OnKeywordMatchListener> keywordListeners = new ListenerList<>();
+
+    /**
+     * 关键词检测，设置词典后才会创建
+     */
+    private KeywordWatcher keywordWatcher = null;
+
+    /**
+     * 是否拦截会产生关键词的输入
+     */
+    private boolean isKeywordBlocked = false;
+
+    /**
+     * 每次设置词典时递增，用于丢弃过期的后台编译结果
+     */
+    private int keywordGeneration = 0;
+
+    /**
+     * 字符规则过滤，设置字符规则后才会创建
+     */
+    private CharacterPolicyFilter policyFilter = null;
+
+    /**
+     * 粘贴内容达到该字符数时改为后台处理、分段插入，小于或等于0表示总是同步粘贴
+     */
+    private int asyncPasteThreshold = 64 * 1024;
+
+    /**
+     * 正在进行的后台粘贴
+     */
+    private AsyncPaster paster = null;
+
+    private OnPasteProgressListener pasteListener = null;
+
+    private final ListenerList<OnPasteProgressListener> pasteListeners = new ListenerList<>();
+
+    /**
+     * 是否在输入框内显示字数统计
+     */
+    private boolean isShowCharCounter = false;
+
+    /**
+     * 字数统计，设置相关属性时才会创建
+     */
+    private CharCounter charCounter = null;
+
+    /**
+     * 字数统计的绘制区域，复用以免每次刷新都创建对象
+     */
+    private final Rect counterBounds = new Rect();
+
+    private boolean counterAlignLeft = false;
+
+    /**
+     * 输入轨迹录制，开始录制后才会创建
+     */
+    private TypingTraceRecorder traceRecorder = null;
+
+    /**
+     * 执行耗时任务的线程池
+     */
+    @NonNull
+    private Executor backgroundExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+    /**
+     * 构造方法是否已执行完，父类构造方法中会调用被重写的方法，此时成员变量还没有初始化
+     */
+    private boolean initialized = false;
+
     public EasyEditText(Context context) {
         this(context, null);
     }
@@ -129,11 +273,59 @@ public class EasyEditText extends AppCompatEditText {
         maxCharsAlertWithCount = checkNull(ta.getString(R.styleable.EasyEditText_maxCharsAlert));
         showMaxCharsAlertToast = ta.getBoolean(R.styleable.EasyEditText_showMaxCharsAlertToast, false);
         maxCharsAlertDuration = ta.getInt(R.styleable.EasyEditText_maxCharsAlertDuration, maxCharsAlertDuration);
+        autoMaskDelay = ta.getInt(R.styleable.EasyEditText_autoMaskDelay, 0);
+        if (ta.getBoolean(R.styleable.EasyEditText_showCharCounter, false)) {
+            CharCounter counter = getCharCounter();
+            counter.setPosition(ta.getInt(R.styleable.EasyEditText_charCounterPosition, COUNTER_BOTTOM_END));
+            counter.setColor(ta.getColor(R.styleable.EasyEditText_charCounterColor, counter.getColor()));
+            counter.setWarningColor(ta.getColor(R.styleable.EasyEditText_charCounterWarningColor, counter.getWarningColor()));
+            counter.setWarningThreshold(ta.getInt(R.styleable.EasyEditText_charCounterWarningThreshold, 0));
+            counter.setTextSize(ta.getDimension(R.styleable.EasyEditText_charCounterTextSize, counter.getTextSize()));
+            setShowCharCounter(true);
+        }
+        asyncPasteThreshold = ta.getInt(R.styleable.EasyEditText_asyncPasteThreshold, asyncPasteThreshold);
+        int keywordsId = ta.getResourceId(R.styleable.EasyEditText_keywords, 0);
+        boolean keywordIgnoreCase = ta.getBoolean(R.styleable.EasyEditText_keywordIgnoreCase, false);
+        int keywordHighlightColor = ta.getColor(R.styleable.EasyEditText_keywordHighlightColor, 0);
+        boolean keywordBlocked = ta.getBoolean(R.styleable.EasyEditText_keywordBlocked, false);
+        String allowedCharacters = ta.getString(R.styleable.EasyEditText_allowedCharacters);
+        String deniedCharacters = ta.getString(R.styleable.EasyEditText_deniedCharacters);
+        int characterPreset = ta.getInt(R.styleable.EasyEditText_characterPreset, 0);
         ta.recycle();
+        if (allowedCharacters != null || deniedCharacters != null || characterPreset != 0) {
+            CharacterPolicy.Builder builder = new CharacterPolicy.Builder().allowPreset(characterPreset);
+            if (allowedCharacters != null) {
+                builder.allow(allowedCharacters);
+            }
+            if (deniedCharacters != null) {
+                builder.deny(deniedCharacters);
+            }
+            setCharacterPolicy(builder.build());
+        }
+        if (keywordsId != 0) {
+            setKeywordHighlightColor(keywordHighlightColor);
+            setKeywordBlocked(keywordBlocked);
+            setKeywordDictionaryAsync(Arrays.asList(getResources().getStringArray(keywordsId)), keywordIgnoreCase);
+        }
         if (getText() != null) {
             isEmpty = getText().toString().isEmpty();
         }
         initContentToggle();
+        initialized = true;
+    }
+
+    /**
+     * 监听字符输入，所有监听共用同一份字符串和长度
+     */
+    void dispatchContentChanged() {
+        Object[] listeners = contentListeners.snapshot();
+        if (listeners.length > 0 && getText() != null) {
+            String content = getText().toString();
+            int length = content.length();
+            for (Object listener : listeners) {
+                ((OnContentChangeListener) listener).onChanged(content, length);
+            }
+        }
     }
 
     private String checkNull(String string) {
@@ -143,11 +335,55 @@ public class EasyEditText extends AppCompatEditText {
         return string;
     }
 
+    @Override
+    public void setInputType(int type) {
+        super.setInputType(type);
+        //父类构造方法中也会调用，构造方法中会再检查一次输入类型
+        if (!initialized) {
+            return;
+        }
+        checkInputType();
+        if (isPwdType) {
+            traceRecorder = null;
+        }
+        //TextView只会替换PasswordTransformationMethod的单例，明暗文切换的转换需要自己更新
+        if (getTransformationMethod() == passwordToggle) {
+            if (isPwdType) {
+                passwordToggle.setMasked(!isDisplayContent, getText());
+            } else {
+                removePasswordToggle(type);
+            }
+        }
+        if (isShowPlainCipherToggle && !isShowClearButton) {
+            if (isPwdType) {
+                initContentToggle();
+            } else {
+                removeDrawable();
+            }
+        }
+        scheduleAutoMask();
+    }
+
+    /**
+     * 切换为非密码类型时移除明暗文切换的转换，与TextView一致，单行时换成单行转换，光标位置保持不变
+     */
+    private void removePasswordToggle(int type) {
+        boolean multiLine = (type & (EditorInfo.TYPE_MASK_CLASS | EditorInfo.TYPE_TEXT_FLAG_MULTI_LINE))
+                == (EditorInfo.TYPE_CLASS_TEXT | EditorInfo.TYPE_TEXT_FLAG_MULTI_LINE);
+        int start = getSelectionStart();
+        int end = getSelectionEnd();
+        setTransformationMethod(multiLine ? null : SingleLineTransformationMethod.getInstance());
+        if (start >= 0 && end >= 0 && Math.max(start, end) <= length()) {
+            setSelection(start, end);
+        }
+    }
+
     /**
      * 根据inputType判断是不是密码输入类型，从而决定显示明文或暗文
      */
     private void checkInputType() {
-        switch (getInputType()) {
+        //只比较类型和变体，忽略TYPE_TEXT_FLAG_NO_SUGGESTIONS等标志位
+        switch (getInputType() & (EditorInfo.TYPE_MASK_CLASS | EditorInfo.TYPE_MASK_VARIATION)) {
             case EditorInfo.TYPE_CLASS_TEXT | EditorInfo.TYPE_TEXT_VARIATION_VISIBLE_PASSWORD://可见的密码
                 isPwdType = true;
                 isDisplayContent = true;
@@ -165,8 +401,21 @@ public class EasyEditText extends AppCompatEditText {
         }
     }
 
+    @Override
+    public void setTransformationMethod(TransformationMethod method) {
+        super.setTransformationMethod(method);
+        //父类构造方法中也会调用，此时traceRecorder仍为null
+        if (method instanceof PasswordTransformationMethod) {
+            traceRecorder = null;
+        }
+    }
+
     private void initContentToggle() {
         if (isPwdType && !isShowClearButton && isShowPlainCipherToggle) {
+            if (getTransformationMethod() != passwordToggle) {
+                passwordToggle.setMasked(!isDisplayContent, null);
+                setTransformationMethod(passwordToggle);
+            }
             setVisibilityDrawable();
         }
     }
@@ -175,74 +424,416 @@ public class EasyEditText extends AppCompatEditText {
         if (textWatcher != null) {
             return;
         }
+        //安装之前的内容变化没有被跟踪，需要先同步一次
+        isEmpty = length() == 0;
         textWatcher = new TextWatcher() {
             @Override
             public void beforeTextChanged(CharSequence s, int start, int count, int after) {
-                if (beforeListener != null) {
-                    beforeListener.onBefore(s == null ? "" : s, start, count, after);
+                if (traceRecorder != null) {
+                    traceRecorder.onBefore(start, count, after);
+                }
+                CharSequence content = s == null ? "" : s;
+                for (Object listener : beforeListeners.snapshot()) {
+                    ((BeforeTextChangeListener) listener).onBefore(content, start, count, after);
                 }
             }
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 CharSequence content = s == null ? "" : s;
-                if (changeListener != null) {
-                    changeListener.onChange(content, start, before, count);
+                if (traceRecorder != null) {
+                    traceRecorder.onChange(content, start, before, count);
                 }
-                //监听是否为空
-                if (emptyListener != null) {
-                    if (TextUtils.isEmpty(content)) {
-                        isEmpty = true;
-                        emptyListener.onEmpty(isEmpty);
-                    } else {
-                        if (isEmpty) {
-                            isEmpty = false;
-                            emptyListener.onEmpty(isEmpty);
-                        }
+                int length = content.length();
+                if (isShowCharCounter) {
+                    updateCharCounter(length);
+                }
+                for (Object listener : changeListeners.snapshot()) {
+                    ((OnTextChangeListener) listener).onChange(content, start, before, count);
+                }
+                //监听是否为空，内容为空时每次都回调，从空变为非空时回调一次
+                boolean empty = length == 0;
+                boolean emptyChanged = empty || isEmpty;
+                isEmpty = empty;
+                if (emptyChanged) {
+                    for (Object listener : emptyListeners.snapshot()) {
+                        ((OnEmptyChangeListener) listener).onEmpty(empty);
                     }
                 }
 
-                //监听最大输入字符
-                if (maxCharacters > 0 && content.length() > maxCharacters) {
+                //监听最大输入字符，限制输入时通常已被InputFilter截断
+                if (maxCharacters > 0 && length > maxCharacters) {
                     if (isMaxCharsLimited) {
-                        setText(content.toString().substring(0, maxCharacters));
-                        //光标移至最末端
-                        assert getText() != null;
-                        setSelection(getText().length());
-                    }
-                    if (!maxCharsAlertWithCount.isEmpty()) {
-                        maxCharsAlertFinal = String.format(maxCharsAlertWithCount, maxCharacters);
-                    } else if (!maxCharsAlert.isEmpty()) {
-                        maxCharsAlertFinal = maxCharsAlert;
+                        pendingTruncate = true;
                     } else {
-                        maxCharsAlertFinal = String.format(getContext().getString(R.string.eet_max_chars_alert_with_count), maxCharacters);
-                    }
-                    if (showMaxCharsAlertToast) {
-                        Toast.makeText(getContext(), maxCharsAlertFinal, maxCharsAlertDuration).show();
-                    }
-                    if (maxListener != null) {
-                        maxListener.onMaxChars(maxCharacters, maxCharsAlertFinal);
+                        notifyMaxCharsExceeded();
                     }
                 }
             }
 
             @Override
             public void afterTextChanged(Editable s) {
-                if (afterListener != null) {
-                    afterListener.onAfter(s);
+                if (pendingTruncate) {
+                    pendingTruncate = false;
+                    //截断会再走一遍完整的回调，本次不再重复分发
+                    if (maxCharacters > 0 && s.length() > maxCharacters) {
+                        s.delete(maxCharacters, s.length());
+                        notifyMaxCharsExceeded();
+                        if (traceRecorder != null) {
+                            traceRecorder.onAfter();
+                        }
+                        return;
+                    }
+                }
+                for (Object listener : afterListeners.snapshot()) {
+                    ((AfterTextChangeListener) listener).onAfter(s);
                 }
-                //监听字符输入
-                if (contentListener != null) {
-                    contentListener.onChanged(s.toString(), s.toString().length());
+                //后台粘贴分段插入时由粘贴结束后统一分发
+                if (paster == null || !paster.isInserting()) {
+                    dispatchContentChanged();
                 }
                 if (isShowClearButton) {
                     setClearButton();
                 }
+                if (traceRecorder != null) {
+                    traceRecorder.onAfter();
+                }
             }
         };
         addTextChangedListener(textWatcher);
     }
 
+    /**
+     * 超过最大输入字符数时弹出提示并通知监听
+     */
+    void notifyMaxCharsExceeded() {
+        if (!maxCharsAlertWithCount.isEmpty()) {
+            maxCharsAlertFinal = String.format(maxCharsAlertWithCount, maxCharacters);
+        } else if (!maxCharsAlert.isEmpty()) {
+            maxCharsAlertFinal = maxCharsAlert;
+        } else {
+            maxCharsAlertFinal = String.format(getContext().getString(R.string.eet_max_chars_alert_with_count), maxCharacters);
+        }
+        if (showMaxCharsAlertToast) {
+            Toast.makeText(getContext(), maxCharsAlertFinal, maxCharsAlertDuration).show();
+        }
+        for (Object listener : maxListeners.snapshot()) {
+            ((OnMaxCharactersListener) listener).onMaxChars(maxCharacters, maxCharsAlertFinal);
+        }
+    }
+
+    @SuppressLint("InlinedApi")
+    @Override
+    public boolean onTextContextMenuItem(int id) {
+        if (id == android.R.id.paste || id == android.R.id.pasteAsPlainText) {
+            if (asyncPasteThreshold > 0 && pasteAsync()) {
+                return true;
+            }
+        }
+        return super.onTextContextMenuItem(id);
+    }
+
+    /**
+     * 剪贴板内容较多时改为后台粘贴
+     *
+     * @return 内容较少时返回false，交给系统同步粘贴
+     */
+    private boolean pasteAsync() {
+        ClipboardManager clipboard = (ClipboardManager) getContext().getSystemService(Context.CLIPBOARD_SERVICE);
+        ClipData clip = clipboard == null ? null : clipboard.getPrimaryClip();
+        if (clip == null || clip.getItemCount() == 0) {
+            return false;
+        }
+        //与系统粘贴一致，多项内容之间用换行分隔
+        CharSequence paste;
+        if (clip.getItemCount() == 1) {
+            paste = clip.getItemAt(0).coerceToText(getContext());
+        } else {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < clip.getItemCount(); i++) {
+                if (i > 0) {
+                    builder.append('\n');
+                }
+                builder.append(clip.getItemAt(i).coerceToText(getContext()));
+            }
+            paste = builder;
+        }
+        if (paste == null || paste.length() < asyncPasteThreshold) {
+            return false;
+        }
+        cancelPaste();
+        int room = Integer.MAX_VALUE;
+        if (maxCharacters > 0 && isMaxCharsLimited) {
+            int selected = Math.abs(getSelectionEnd() - getSelectionStart());
+            room = Math.max(0, maxCharacters - (length() - selected));
+        }
+        KeywordDictionary keywords = isKeywordBlocked ? getKeywordDictionary() : null;
+        paster = new AsyncPaster(this, pasteListeners, paste, getCharacterPolicy(), keywords, room);
+        paster.start();
+        return true;
+    }
+
+    /**
+     * 是否正在后台粘贴
+     */
+    public boolean isPasting() {
+        return paster != null && !paster.isFinished();
+    }
+
+    /**
+     * 取消正在进行的后台粘贴，已经插入的内容会被保留
+     */
+    public void cancelPaste() {
+        if (paster != null) {
+            paster.cancel();
+            paster = null;
+        }
+    }
+
+    /**
+     * 获取后台粘贴的字符数阈值
+     */
+    public int getAsyncPasteThreshold() {
+        return asyncPasteThreshold;
+    }
+
+    /**
+     * 设置后台粘贴的字符数阈值
+     * 粘贴内容达到该字符数时，换行规范化、字符过滤和截断在后台线程完成，再按帧分段插入
+     *
+     * @param threshold:小于或等于0表示总是同步粘贴
+     */
+    public void setAsyncPasteThreshold(int threshold) {
+        asyncPasteThreshold = threshold;
+    }
+
+    private CharCounter getCharCounter() {
+        if (charCounter == null) {
+            float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, getResources().getDisplayMetrics());
+            charCounter = new CharCounter(textSize, getCurrentHintTextColor(), Color.RED, 0);
+        }
+        return charCounter;
+    }
+
+    /**
+     * 字数统计变化时只刷新它所在的区域
+     */
+    private void updateCharCounter(int length) {
+        if (charCounter.update(length, maxCharacters)) {
+            updateCounterBounds();
+            invalidate(counterBounds);
+        }
+    }
+
+    /**
+     * 计算字数统计的绘制区域，坐标包含滚动偏移，与onDraw中的画布一致
+     * 水平方向与文字区域对齐，让出左右两侧的图标：图标在文字区域内垂直居中，比文字高时会伸入字数统计所在的行
+     */
+    private void updateCounterBounds() {
+        int height = charCounter.getHeight();
+        int width = charCounter.getReservedWidth();
+        boolean rtl = ViewCompat.getLayoutDirection(this) == ViewCompat.LAYOUT_DIRECTION_RTL;
+        counterAlignLeft = charCounter.isStart() != rtl;
+        int left = counterAlignLeft ? getCompoundPaddingLeft() : getWidth() - getCompoundPaddingRight() - width;
+        int top = charCounter.isTop() ? getPaddingTop() : getHeight() - getPaddingBottom() - height;
+        left += getScrollX();
+        top += getScrollY();
+        counterBounds.set(left, top, left + width, top + height);
+    }
+
+    /**
+     * 字数统计最近一次计算的绘制区域，只用于测试
+     */
+    Rect getCounterBounds() {
+        return counterBounds;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (isShowCharCounter) {
+            updateCounterBounds();
+            charCounter.draw(canvas, counterBounds.left, counterBounds.top, counterBounds.right, counterAlignLeft);
+        }
+    }
+
+    @Override
+    public int getCompoundPaddingTop() {
+        int padding = super.getCompoundPaddingTop();
+        //父类构造方法中也会调用，此时isShowCharCounter仍为false
+        if (isShowCharCounter && charCounter.isTop()) {
+            padding += charCounter.getHeight();
+        }
+        return padding;
+    }
+
+    @Override
+    public int getCompoundPaddingBottom() {
+        int padding = super.getCompoundPaddingBottom();
+        if (isShowCharCounter && !charCounter.isTop()) {
+            padding += charCounter.getHeight();
+        }
+        return padding;
+    }
+
+    /**
+     * 是否在输入框内显示字数统计
+     */
+    public boolean isShowCharCounter() {
+        return isShowCharCounter;
+    }
+
+    /**
+     * 设置是否在输入框内显示字数统计，格式为“当前字数 / 最大字数”，没有设置最大字数时只显示当前字数
+     * 字数统计直接绘制在输入框内，不需要另外的TextView
+     */
+    public void setShowCharCounter(boolean showCharCounter) {
+        if (isShowCharCounter == showCharCounter) {
+            return;
+        }
+        if (showCharCounter) {
+            getCharCounter().update(length(), maxCharacters);
+            setTextWatcher();
+        }
+        isShowCharCounter = showCharCounter;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 获取字数统计的位置
+     */
+    public int getCharCounterPosition() {
+        return getCharCounter().getPosition();
+    }
+
+    /**
+     * 设置字数统计的位置
+     *
+     * @param position:COUNTER_BOTTOM_END、COUNTER_BOTTOM_START、COUNTER_TOP_END或COUNTER_TOP_START
+     */
+    public void setCharCounterPosition(int position) {
+        getCharCounter().setPosition(position);
+        if (isShowCharCounter) {
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    /**
+     * 获取字数统计的文字颜色
+     */
+    @ColorInt
+    public int getCharCounterColor() {
+        return getCharCounter().getColor();
+    }
+
+    /**
+     * 设置字数统计的文字颜色，默认为提示文字的颜色
+     */
+    public void setCharCounterColor(@ColorInt int color) {
+        getCharCounter().setColor(color);
+        invalidateCharCounter();
+    }
+
+    /**
+     * 获取接近最大字数时字数统计的文字颜色
+     */
+    @ColorInt
+    public int getCharCounterWarningColor() {
+        return getCharCounter().getWarningColor();
+    }
+
+    /**
+     * 设置接近最大字数时字数统计的文字颜色，默认为红色
+     */
+    public void setCharCounterWarningColor(@ColorInt int color) {
+        getCharCounter().setWarningColor(color);
+        invalidateCharCounter();
+    }
+
+    /**
+     * 获取使用警告颜色的剩余字数
+     */
+    public int getCharCounterWarningThreshold() {
+        return getCharCounter().getWarningThreshold();
+    }
+
+    /**
+     * 设置剩余字数小于或等于多少时使用警告颜色，默认为0，即达到最大字数时
+     */
+    public void setCharCounterWarningThreshold(int threshold) {
+        getCharCounter().setWarningThreshold(threshold);
+        invalidateCharCounter();
+    }
+
+    /**
+     * 获取字数统计的文字大小，单位px
+     */
+    public float getCharCounterTextSize() {
+        return getCharCounter().getTextSize();
+    }
+
+    /**
+     * 设置字数统计的文字大小，默认为12sp
+     *
+     * @param textSize:单位px
+     */
+    public void setCharCounterTextSize(float textSize) {
+        getCharCounter().setTextSize(textSize);
+        if (isShowCharCounter) {
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    private void invalidateCharCounter() {
+        if (isShowCharCounter) {
+            updateCounterBounds();
+            invalidate(counterBounds);
+        }
+    }
+
+    /**
+     * 开始录制输入轨迹，已在录制时会丢弃之前的轨迹重新开始
+     * 轨迹包含输入的每个字符，可以在测试中回放，用于比较不同版本的输入性能。
+     * 密码输入框不会录制，录制过程中切换为密码类型或设置密码转换时会丢弃已录制的轨迹
+     *
+     * @return 密码输入框返回false
+     */
+    public boolean startTypingTrace() {
+        //inputType不是密码类型、但设置了密码转换的输入框同样不录制
+        if (isPwdType || getTransformationMethod() instanceof PasswordTransformationMethod) {
+            traceRecorder = null;
+            return false;
+        }
+        Editable text = getText();
+        traceRecorder = new TypingTraceRecorder(text == null ? "" : text);
+        setTextWatcher();
+        return true;
+    }
+
+    /**
+     * 停止录制输入轨迹
+     *
+     * @return 紧凑的二进制轨迹，没有在录制时或轨迹已因切换为密码类型或密码转换而丢弃时返回null
+     */
+    public byte[] stopTypingTrace() {
+        if (traceRecorder == null) {
+            return null;
+        }
+        byte[] trace = traceRecorder.finish();
+        traceRecorder = null;
+        return trace;
+    }
+
+    /**
+     * 是否正在录制输入轨迹
+     */
+    public boolean isRecordingTypingTrace() {
+        return traceRecorder != null;
+    }
+
     @SuppressLint("ClickableViewAccessibility")
     @Override
     public boolean onTouchEvent(MotionEvent event) {
@@ -254,23 +845,106 @@ public class EasyEditText extends AppCompatEditText {
             getLocalVisibleRect(rect);
             rect.left = rect.right - 100;
             if (rect.contains(eventX, eventY)) {
-                if (isShowClearButton) {
-                    setText("");
-                } else if (isShowPlainCipherToggle) {
-                    isDisplayContent = !isDisplayContent;
-                    if (isDisplayContent) {
-                        setTransformationMethod(HideReturnsTransformationMethod.getInstance());
-                    } else {
-                        setTransformationMethod(PasswordTransformationMethod.getInstance());
-                    }
-                    setVisibilityDrawable();
-                    setSelection(length());
-                }
+                onRightIconClick();
             }
         }
         return super.onTouchEvent(event);
     }
 
+    /**
+     * 点击右侧图标：清空内容或切换明暗文
+     */
+    void onRightIconClick() {
+        if (isShowClearButton) {
+            setText("");
+        } else if (isShowPlainCipherToggle && isPwdType) {
+            setContentDisplayed(!isDisplayContent);
+        }
+    }
+
+    /**
+     * 当前内容是否显示为暗文
+     */
+    boolean isContentMasked() {
+        TransformationMethod method = getTransformationMethod();
+        if (method == passwordToggle) {
+            return passwordToggle.isMasked();
+        }
+        return method instanceof PasswordTransformationMethod;
+    }
+
+    /**
+     * 切换明暗文，只对显示了明暗文切换按钮的密码框生效
+     * 切换时不重设文本，光标位置保持不变，图标只重绘不重新布局
+     *
+     * @param displayed:true时显示明文
+     */
+    public void setContentDisplayed(boolean displayed) {
+        if (!isPwdType || isShowClearButton || !isShowPlainCipherToggle || isDisplayContent == displayed) {
+            return;
+        }
+        isDisplayContent = displayed;
+        if (getTransformationMethod() == passwordToggle) {
+            passwordToggle.setMasked(!displayed, getText());
+            //宽度随内容变化时才需要重新测量
+            ViewGroup.LayoutParams params = getLayoutParams();
+            if (params != null && params.width == ViewGroup.LayoutParams.WRAP_CONTENT) {
+                requestLayout();
+            }
+        } else {
+            initContentToggle();
+        }
+        setVisibilityDrawable();
+        scheduleAutoMask();
+    }
+
+    /**
+     * 当前是否显示明文
+     */
+    public boolean isContentDisplayed() {
+        return isDisplayContent;
+    }
+
+    /**
+     * 获取显示明文后自动切回暗文的延时
+     */
+    public long getAutoMaskDelay() {
+        return autoMaskDelay;
+    }
+
+    /**
+     * 设置显示明文后自动切回暗文的延时，显示明文期间每次输入都会重新计时
+     *
+     * @param delayMillis:单位毫秒，小于或等于0表示不自动切回
+     */
+    public void setAutoMaskDelay(long delayMillis) {
+        autoMaskDelay = delayMillis;
+        scheduleAutoMask();
+    }
+
+    private void scheduleAutoMask() {
+        removeCallbacks(autoMaskTask);
+        if (autoMaskDelay > 0 && isDisplayContent && isPwdType && isShowPlainCipherToggle) {
+            postDelayed(autoMaskTask, autoMaskDelay);
+        }
+    }
+
+    @Override
+    protected void onTextChanged(CharSequence text, int start, int lengthBefore, int lengthAfter) {
+        super.onTextChanged(text, start, lengthBefore, lengthAfter);
+        //父类构造方法中也会调用，此时autoMaskDelay仍为0
+        if (autoMaskDelay > 0 && isDisplayContent) {
+            scheduleAutoMask();
+        }
+    }
+
+    /**
+     * 右侧是否显示了图标
+     */
+    boolean isRightIconShown() {
+        return hasRightDrawable();
+    }
+
     /**
      * 设置一键清除按钮
      * 输入框内容为空时隐藏一键清空按钮
@@ -287,13 +961,16 @@ public class EasyEditText extends AppCompatEditText {
      * 切换内容是否可见的图标
      */
     private void setVisibilityDrawable() {
-        Drawable ivVisibility;
-        if (isDisplayContent) {
-            ivVisibility = ContextCompat.getDrawable(getContext(), plainTextIcon);
-        } else {
-            ivVisibility = ContextCompat.getDrawable(getContext(), cipherTextIcon);
+        if (toggleDrawable == null) {
+            toggleDrawable = new LevelListDrawable();
+            toggleDrawable.addLevel(0, 0, ContextCompat.getDrawable(getContext(), cipherTextIcon));
+            toggleDrawable.addLevel(1, 1, ContextCompat.getDrawable(getContext(), plainTextIcon));
+        }
+        //两个图标已缓存在同一个Drawable中，切换level只会重绘
+        toggleDrawable.setLevel(isDisplayContent ? 1 : 0);
+        if (getRightDrawable() != toggleDrawable) {
+            setCompoundDrawablesWithIntrinsicBounds(null, null, toggleDrawable, null);
         }
-        setCompoundDrawablesWithIntrinsicBounds(null, null, ivVisibility, null);
     }
 
     /**
@@ -341,6 +1018,7 @@ public class EasyEditText extends AppCompatEditText {
      */
     public void setPlainTextIcon(@DrawableRes int plainTextIcon) {
         this.plainTextIcon = plainTextIcon;
+        toggleDrawable = null;
         initContentToggle();
     }
 
@@ -356,6 +1034,7 @@ public class EasyEditText extends AppCompatEditText {
      */
     public void setCipherTextIcon(@DrawableRes int cipherTextIcon) {
         this.cipherTextIcon = cipherTextIcon;
+        toggleDrawable = null;
         initContentToggle();
     }
 
@@ -377,6 +1056,11 @@ public class EasyEditText extends AppCompatEditText {
         if (maxCharacters > 0) {
             setTextWatcher();
         }
+        updatePolicyFilter();
+        if (isShowCharCounter) {
+            charCounter.update(length(), maxCharacters);
+            invalidate();
+        }
     }
 
     /**
@@ -391,6 +1075,7 @@ public class EasyEditText extends AppCompatEditText {
         isShowClearButton = showClearButton;
         if (isShowClearButton) {
             setTextWatcher();
+            setClearButton();
         } else {
             removeDrawable();
         }
@@ -484,9 +1169,10 @@ public class EasyEditText extends AppCompatEditText {
             return;
         }
         isShowPlainCipherToggle = showPlainCipherToggle;
-        if (isShowPlainCipherToggle && !hasRightDrawable()) {
-            setVisibilityDrawable();
+        if (isShowPlainCipherToggle) {
+            initContentToggle();
         } else {
+            removeCallbacks(autoMaskTask);
             removeDrawable();
         }
     }
@@ -523,6 +1209,199 @@ public class EasyEditText extends AppCompatEditText {
     }
 
 
+    /**
+     * 获取执行耗时任务的线程池
+     */
+    @NonNull
+    public Executor getBackgroundExecutor() {
+        return backgroundExecutor;
+    }
+
+    /**
+     * 设置执行耗时任务的线程池，默认为AsyncTask.THREAD_POOL_EXECUTOR
+     */
+    public void setBackgroundExecutor(@NonNull Executor executor) {
+        backgroundExecutor = executor;
+    }
+
+    private KeywordWatcher getKeywordWatcher() {
+        if (keywordWatcher == null) {
+            keywordWatcher = new KeywordWatcher(keywordListeners);
+            addTextChangedListener(keywordWatcher);
+        }
+        return keywordWatcher;
+    }
+
+    /**
+     * 获取当前的关键词词典
+     */
+    public KeywordDictionary getKeywordDictionary() {
+        return keywordWatcher == null ? null : keywordWatcher.getDictionary();
+    }
+
+    /**
+     * 设置关键词词典，并重新检测全部内容
+     * 同一个词典可以在多个输入框之间共享
+     *
+     * @param dictionary:为null时关闭关键词检测
+     */
+    public void setKeywordDictionary(KeywordDictionary dictionary) {
+        keywordGeneration++;
+        if (dictionary == null && keywordWatcher == null) {
+            return;
+        }
+        getKeywordWatcher().setDictionary(dictionary, getText());
+    }
+
+    /**
+     * 在后台线程编译关键词词典，完成后在主线程替换当前词典
+     * 编译期间仍使用旧词典；如果编译完成前又设置了新词典，本次结果会被丢弃
+     *
+     * @param words:关键词列表
+     * @param ignoreCase:是否忽略大小写
+     */
+    public void setKeywordDictionaryAsync(@NonNull Collection<? extends CharSequence> words, final boolean ignoreCase) {
+        final int generation = ++keywordGeneration;
+        final ArrayList<CharSequence> snapshot = new ArrayList<>(words);
+        backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final KeywordDictionary dictionary = KeywordDictionary.compile(snapshot, ignoreCase);
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == keywordGeneration) {
+                            getKeywordWatcher().setDictionary(dictionary, getText());
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 获取关键词的高亮颜色
+     */
+    @ColorInt
+    public int getKeywordHighlightColor() {
+        return keywordWatcher == null ? 0 : keywordWatcher.getHighlightColor();
+    }
+
+    /**
+     * 设置关键词的高亮颜色
+     *
+     * @param color:为0时不高亮
+     */
+    public void setKeywordHighlightColor(@ColorInt int color) {
+        if (color == getKeywordHighlightColor()) {
+            return;
+        }
+        getKeywordWatcher().setHighlightColor(color, getText());
+    }
+
+    /**
+     * 是否拦截会产生关键词的输入
+     */
+    public boolean isKeywordBlocked() {
+        return isKeywordBlocked;
+    }
+
+    /**
+     * 设置是否拦截会产生关键词的输入
+     * 拦截通过InputFilter实现，之后再调用setFilters()需要重新设置
+     *
+     * @param blocked:true时整段拒绝会产生关键词的输入，删除后两侧拼出关键词时也会拒绝删除
+     */
+    public void setKeywordBlocked(boolean blocked) {
+        if (isKeywordBlocked == blocked) {
+            return;
+        }
+        isKeywordBlocked = blocked;
+        toggleFilter(getKeywordWatcher().blockFilter, blocked);
+    }
+
+    /**
+     * 获取当前的字符规则
+     */
+    public CharacterPolicy getCharacterPolicy() {
+        return policyFilter == null ? null : policyFilter.getPolicy();
+    }
+
+    /**
+     * 设置字符规则，只对之后输入的内容生效
+     * 字符过滤和超过最大输入字符数的截断在同一次遍历中完成
+     *
+     * @param policy:为null时不限制字符
+     */
+    public void setCharacterPolicy(CharacterPolicy policy) {
+        if (policy == null && policyFilter == null) {
+            return;
+        }
+        if (policyFilter == null) {
+            policyFilter = new CharacterPolicyFilter(this);
+        }
+        policyFilter.setPolicy(policy);
+        updatePolicyFilter();
+    }
+
+    /**
+     * 设置了字符规则或最大输入字符数时安装过滤器，输入时直接截断，不在回调中重设文本
+     */
+    private void updatePolicyFilter() {
+        boolean enabled = maxCharacters > 0 || getCharacterPolicy() != null;
+        if (!enabled && policyFilter == null) {
+            return;
+        }
+        if (policyFilter == null) {
+            policyFilter = new CharacterPolicyFilter(this);
+        }
+        toggleFilter(policyFilter, enabled);
+    }
+
+    /**
+     * 去掉输入框自己的InputFilter，后台粘贴时这些过滤已经在后台完成
+     */
+    InputFilter[] getExternalFilters(InputFilter[] filters) {
+        int count = 0;
+        for (InputFilter filter : filters) {
+            if (!isOwnFilter(filter)) {
+                count++;
+            }
+        }
+        if (count == filters.length) {
+            return filters;
+        }
+        InputFilter[] external = new InputFilter[count];
+        int index = 0;
+        for (InputFilter filter : filters) {
+            if (!isOwnFilter(filter)) {
+                external[index++] = filter;
+            }
+        }
+        return external;
+    }
+
+    private boolean isOwnFilter(InputFilter filter) {
+        return filter == policyFilter || (keywordWatcher != null && filter == keywordWatcher.blockFilter);
+    }
+
+    /**
+     * 添加或移除输入框自己的InputFilter，保留调用方设置的其他InputFilter
+     */
+    private void toggleFilter(InputFilter target, boolean enabled) {
+        InputFilter[] filters = getFilters();
+        ArrayList<InputFilter> newFilters = new ArrayList<>(filters.length + 1);
+        for (InputFilter filter : filters) {
+            if (filter != target) {
+                newFilters.add(filter);
+            }
+        }
+        if (enabled) {
+            newFilters.add(target);
+        }
+        setFilters(newFilters.toArray(new InputFilter[0]));
+    }
+
     /**
      * 文本改变前的监听接口
      */
@@ -538,13 +1417,31 @@ public class EasyEditText extends AppCompatEditText {
     }
 
     /**
-     * 设置文本改变前的监听事件
+     * 设置文本改变前的监听事件，会替换上一次设置的监听，不影响通过add添加的监听
      */
     public void setBeforeTextChangeListener(BeforeTextChangeListener listener) {
+        beforeListeners.remove(beforeListener);
         beforeListener = listener;
+        if (listener != null) {
+            addBeforeTextChangeListener(listener);
+        }
+    }
+
+    /**
+     * 添加文本改变前的监听事件
+     */
+    public void addBeforeTextChangeListener(BeforeTextChangeListener listener) {
+        beforeListeners.add(listener);
         setTextWatcher();
     }
 
+    /**
+     * 移除文本改变前的监听事件
+     */
+    public void removeBeforeTextChangeListener(BeforeTextChangeListener listener) {
+        beforeListeners.remove(listener);
+    }
+
     /**
      * 文本改变时的监听接口
      */
@@ -560,13 +1457,31 @@ public class EasyEditText extends AppCompatEditText {
     }
 
     /**
-     * 设置文本改变监听事件
+     * 设置文本改变监听事件，会替换上一次设置的监听，不影响通过add添加的监听
      */
     public void setOnTextChangeListener(OnTextChangeListener listener) {
+        changeListeners.remove(changeListener);
         changeListener = listener;
+        if (listener != null) {
+            addOnTextChangeListener(listener);
+        }
+    }
+
+    /**
+     * 添加文本改变监听事件
+     */
+    public void addOnTextChangeListener(OnTextChangeListener listener) {
+        changeListeners.add(listener);
         setTextWatcher();
     }
 
+    /**
+     * 移除文本改变监听事件
+     */
+    public void removeOnTextChangeListener(OnTextChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
     /**
      * 文本改变后的监听接口
      */
@@ -580,10 +1495,29 @@ public class EasyEditText extends AppCompatEditText {
     }
 
     /**
-     * 设置文本改变后的监听
+     * 设置文本改变后的监听，会替换上一次设置的监听，不影响通过add添加的监听
      */
     public void setAfterTextChangeListener(AfterTextChangeListener listener) {
+        afterListeners.remove(afterListener);
         afterListener = listener;
+        if (listener != null) {
+            addAfterTextChangeListener(listener);
+        }
+    }
+
+    /**
+     * 添加文本改变后的监听
+     */
+    public void addAfterTextChangeListener(AfterTextChangeListener listener) {
+        afterListeners.add(listener);
+        setTextWatcher();
+    }
+
+    /**
+     * 移除文本改变后的监听
+     */
+    public void removeAfterTextChangeListener(AfterTextChangeListener listener) {
+        afterListeners.remove(listener);
     }
 
     /**
@@ -599,10 +1533,28 @@ public class EasyEditText extends AppCompatEditText {
     }
 
     /**
-     * 设置最大字符数监听事件
+     * 设置最大字符数监听事件，会替换上一次设置的监听，不影响通过add添加的监听
      */
     public void setMaxCharsListener(OnMaxCharactersListener listener) {
+        maxListeners.remove(maxListener);
         maxListener = listener;
+        if (listener != null) {
+            addMaxCharsListener(listener);
+        }
+    }
+
+    /**
+     * 添加最大字符数监听事件
+     */
+    public void addMaxCharsListener(OnMaxCharactersListener listener) {
+        maxListeners.add(listener);
+    }
+
+    /**
+     * 移除最大字符数监听事件
+     */
+    public void removeMaxCharsListener(OnMaxCharactersListener listener) {
+        maxListeners.remove(listener);
     }
 
     /**
@@ -617,19 +1569,37 @@ public class EasyEditText extends AppCompatEditText {
     }
 
     /**
-     * 设置内容是否为空的的监听事件
+     * 设置内容是否为空的的监听事件，会替换上一次设置的监听，不影响通过add添加的监听
      */
     public void setEmptyChangeListener(OnEmptyChangeListener listener) {
+        emptyListeners.remove(emptyListener);
         emptyListener = listener;
+        if (listener != null) {
+            addEmptyChangeListener(listener);
+        }
+    }
+
+    /**
+     * 添加内容是否为空的的监听事件
+     */
+    public void addEmptyChangeListener(OnEmptyChangeListener listener) {
+        emptyListeners.add(listener);
         setTextWatcher();
     }
 
+    /**
+     * 移除内容是否为空的的监听事件
+     */
+    public void removeEmptyChangeListener(OnEmptyChangeListener listener) {
+        emptyListeners.remove(listener);
+    }
+
     /**
      * 内容变化监听接口
      */
     public interface OnContentChangeListener {
         /**
-         * 文本内容变化时触发
+         * 文本内容变化时触发，后台粘贴分段插入时不会逐段触发，粘贴结束后触发一次
          * @param content:文本内容
          * @param count:当前的文本长度
          */
@@ -637,22 +1607,133 @@ public class EasyEditText extends AppCompatEditText {
     }
 
     /**
-     * 文本内容变化监听
+     * 文本内容变化监听，会替换上一次设置的监听，不影响通过add添加的监听
      * @param listener
      */
     public void setOnContentChangeListener(OnContentChangeListener listener) {
+        contentListeners.remove(contentListener);
         contentListener = listener;
+        if (listener != null) {
+            addOnContentChangeListener(listener);
+        }
+    }
+
+    /**
+     * 添加文本内容变化监听
+     */
+    public void addOnContentChangeListener(OnContentChangeListener listener) {
+        contentListeners.add(listener);
         setTextWatcher();
     }
 
+    /**
+     * 移除文本内容变化监听
+     */
+    public void removeOnContentChangeListener(OnContentChangeListener listener) {
+        contentListeners.remove(listener);
+    }
+
+    /**
+     * 关键词监听接口
+     */
+    public interface OnKeywordMatchListener {
+        /**
+         * 输入内容中新出现关键词时触发
+         * @param text:文本内容
+         * @param start:关键词的起始位置
+         * @param end:关键词的结束位置（不包含）
+         */
+        void onKeywordMatch(@NonNull CharSequence text, int start, int end);
+    }
+
+    /**
+     * 设置关键词监听，会替换上一次设置的监听，不影响通过add添加的监听
+     */
+    public void setOnKeywordMatchListener(OnKeywordMatchListener listener) {
+        keywordListeners.remove(keywordListener);
+        keywordListener = listener;
+        if (listener != null) {
+            addOnKeywordMatchListener(listener);
+        }
+    }
+
+    /**
+     * 添加关键词监听
+     */
+    public void addOnKeywordMatchListener(OnKeywordMatchListener listener) {
+        keywordListeners.add(listener);
+    }
+
+    /**
+     * 移除关键词监听
+     */
+    public void removeOnKeywordMatchListener(OnKeywordMatchListener listener) {
+        keywordListeners.remove(listener);
+    }
+
+    /**
+     * 后台粘贴进度监听接口
+     */
+    public interface OnPasteProgressListener {
+        /**
+         * 开始后台粘贴时触发
+         */
+        void onPasteStarted();
+
+        /**
+         * 每插入一段内容时触发
+         * @param inserted:已插入的字符数，被调用方设置的InputFilter过滤掉的字符不计入
+         * @param total:经过换行规范化、字符规则和截断后需要插入的总字符数，会产生关键词而被拦截时为0
+         */
+        void onPasteProgress(int inserted, int total);
+
+        /**
+         * 粘贴完成或取消时触发
+         * @param cancelled:是否被取消
+         */
+        void onPasteFinished(boolean cancelled);
+    }
+
+    /**
+     * 设置后台粘贴进度监听，会替换上一次设置的监听，不影响通过add添加的监听
+     */
+    public void setOnPasteProgressListener(OnPasteProgressListener listener) {
+        pasteListeners.remove(pasteListener);
+        pasteListener = listener;
+        if (listener != null) {
+            addOnPasteProgressListener(listener);
+        }
+    }
+
+    /**
+     * 添加后台粘贴进度监听
+     */
+    public void addOnPasteProgressListener(OnPasteProgressListener listener) {
+        pasteListeners.add(listener);
+    }
+
+    /**
+     * 移除后台粘贴进度监听
+     */
+    public void removeOnPasteProgressListener(OnPasteProgressListener listener) {
+        pasteListeners.remove(listener);
+    }
+
+    /**
+     * 移除通过set方法设置的监听，通过add添加的监听由调用方自行移除
+     */
     @Override
     protected void onDetachedFromWindow() {
-        changeListener = null;
-        beforeListener = null;
-        afterListener = null;
-        contentListener = null;
-        maxListener = null;
-        emptyListener = null;
+        cancelPaste();
+        removeCallbacks(autoMaskTask);
+        setOnTextChangeListener(null);
+        setBeforeTextChangeListener(null);
+        setAfterTextChangeListener(null);
+        setOnContentChangeListener(null);
+        setMaxCharsListener(null);
+        setEmptyChangeListener(null);
+        setOnKeywordMatchListener(null);
+        setOnPasteProgressListener(null);
         super.onDetachedFromWindow();
     }
 }
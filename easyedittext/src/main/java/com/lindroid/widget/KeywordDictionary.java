@@ -0,0 +1,247 @@
+package com.lindroid.widget;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * @function 关键词词典
+ * @Description 将关键词编译成Aho-Corasick自动机，编译后不可变，可在多个输入框之间共享。
+ * 状态转移以压缩数组的形式保存：每个状态的子节点按字符排序后连续存放，查找时二分。
+ * 词典较大时编译比较耗时，请在后台线程中调用{@link #compile(Collection, boolean)}。
+ */
+public final class KeywordDictionary {
+    private static final int ROOT = 0;
+
+    /**
+     * 状态i的子节点位于edgeChars/edgeTargets的[edgeStart[i], edgeStart[i + 1])区间
+     */
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    /**
+     * 失配指针
+     */
+    private final int[] fail;
+    /**
+     * 以该状态结尾的关键词长度，0表示没有
+     */
+    private final int[] matchLength;
+    /**
+     * 沿失配链找到的下一个有关键词结尾的状态，-1表示没有
+     */
+    private final int[] outputLink;
+
+    private final int maxLength;
+
+    private final int size;
+
+    private final boolean ignoreCase;
+
+    /**
+     * 匹配结果回调
+     */
+    public interface Visitor {
+        /**
+         * 找到一个关键词时触发
+         * @param start:关键词的起始位置
+         * @param end:关键词的结束位置（不包含）
+         * @return 返回false则停止扫描
+         */
+        boolean onMatch(int start, int end);
+    }
+
+    private KeywordDictionary(int[] edgeStart, char[] edgeChars, int[] edgeTargets, int[] fail,
+                              int[] matchLength, int[] outputLink, int maxLength, int size, boolean ignoreCase) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.matchLength = matchLength;
+        this.outputLink = outputLink;
+        this.maxLength = maxLength;
+        this.size = size;
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * 编译关键词词典，空字符串会被忽略
+     *
+     * @param words:关键词列表
+     * @param ignoreCase:是否忽略大小写
+     */
+    @NonNull
+    public static KeywordDictionary compile(@NonNull Collection<? extends CharSequence> words, boolean ignoreCase) {
+        //先用“首子节点-兄弟节点”链表建字典树，兄弟节点按字符升序排列
+        int capacity = 16;
+        for (CharSequence word : words) {
+            capacity += word.length();
+        }
+        int[] firstChild = new int[capacity];
+        int[] nextSibling = new int[capacity];
+        char[] label = new char[capacity];
+        int[] matchLength = new int[capacity];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        int states = 1;
+        int maxLength = 0;
+        int size = 0;
+        for (CharSequence word : words) {
+            int length = word.length();
+            if (length == 0) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < length; i++) {
+                char c = fold(word.charAt(i), ignoreCase);
+                int prev = -1;
+                int child = firstChild[state];
+                while (child >= 0 && label[child] < c) {
+                    prev = child;
+                    child = nextSibling[child];
+                }
+                if (child < 0 || label[child] != c) {
+                    int created = states++;
+                    label[created] = c;
+                    nextSibling[created] = child;
+                    if (prev < 0) {
+                        firstChild[state] = created;
+                    } else {
+                        nextSibling[prev] = created;
+                    }
+                    child = created;
+                }
+                state = child;
+            }
+            if (matchLength[state] == 0) {
+                matchLength[state] = length;
+                size++;
+            }
+            maxLength = Math.max(maxLength, length);
+        }
+
+        //转成连续数组
+        int[] edgeStart = new int[states + 1];
+        char[] edgeChars = new char[states - 1];
+        int[] edgeTargets = new int[states - 1];
+        int edge = 0;
+        for (int state = 0; state < states; state++) {
+            edgeStart[state] = edge;
+            for (int child = firstChild[state]; child >= 0; child = nextSibling[child]) {
+                edgeChars[edge] = label[child];
+                edgeTargets[edge] = child;
+                edge++;
+            }
+        }
+        edgeStart[states] = edge;
+
+        KeywordDictionary dictionary = new KeywordDictionary(edgeStart, edgeChars, edgeTargets,
+                new int[states], Arrays.copyOf(matchLength, states), new int[states],
+                maxLength, size, ignoreCase);
+        dictionary.buildFailLinks(states);
+        return dictionary;
+    }
+
+    /**
+     * 按广度优先顺序计算失配指针和输出链
+     */
+    private void buildFailLinks(int states) {
+        outputLink[ROOT] = -1;
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            int child = edgeTargets[e];
+            fail[child] = ROOT;
+            outputLink[child] = -1;
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = edgeTargets[e];
+                int target = next(fail[state], edgeChars[e]);
+                fail[child] = target;
+                outputLink[child] = matchLength[target] > 0 ? target : outputLink[target];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private static char fold(char c, boolean ignoreCase) {
+        return ignoreCase ? Character.toLowerCase(c) : c;
+    }
+
+    private int child(int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = edgeChars[mid];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int child = child(state, c);
+            if (child >= 0) {
+                return child;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    /**
+     * 扫描文本的[from, to)区间，重叠的关键词都会被回调
+     *
+     * @return 扫描完整个区间返回true，被visitor中止返回false
+     */
+    public boolean scan(@NonNull CharSequence text, int from, int to, @NonNull Visitor visitor) {
+        int state = ROOT;
+        for (int i = from; i < to; i++) {
+            state = next(state, fold(text.charAt(i), ignoreCase));
+            int output = matchLength[state] > 0 ? state : outputLink[state];
+            while (output >= 0) {
+                int end = i + 1;
+                if (!visitor.onMatch(end - matchLength[output], end)) {
+                    return false;
+                }
+                output = outputLink[output];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 最长关键词的长度，增量扫描时需要向变化区间两侧各扩展maxLength - 1个字符
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * 关键词个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 是否忽略大小写
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+}
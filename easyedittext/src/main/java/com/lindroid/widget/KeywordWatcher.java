@@ -0,0 +1,200 @@
+package com.lindroid.widget;
+
+import android.text.Editable;
+import android.text.InputFilter;
+import android.text.Spannable;
+import android.text.Spanned;
+import android.text.TextWatcher;
+import android.text.style.BackgroundColorSpan;
+
+/**
+ * @function 关键词增量检测
+ * @Description 只重新扫描变化区间两侧各maxLength - 1个字符的窗口，
+ * 高亮和回调都只处理与变化区间相交的关键词
+ */
+final class KeywordWatcher implements TextWatcher, KeywordDictionary.Visitor {
+    private final ListenerList<EasyEditText.OnKeywordMatchListener> listeners;
+
+    private volatile KeywordDictionary dictionary;
+
+    private int highlightColor;
+
+    /**
+     * 本次变化后的改动区间[dirtyStart, dirtyEnd]，-1表示没有待处理的改动
+     */
+    private int dirtyStart = -1;
+    private int dirtyEnd = -1;
+
+    private Editable scanning;
+
+    /**
+     * 只重建高亮时为true，此时已有的关键词不是新出现的，不回调监听
+     */
+    private boolean highlightOnly = false;
+
+    final InputFilter blockFilter = new BlockFilter();
+
+    KeywordWatcher(ListenerList<EasyEditText.OnKeywordMatchListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    KeywordDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * 替换词典，并重新扫描全部内容
+     */
+    void setDictionary(KeywordDictionary dictionary, Editable text) {
+        this.dictionary = dictionary;
+        if (text == null) {
+            return;
+        }
+        removeHighlights(text, 0, text.length());
+        markDirty(0, text.length());
+        afterTextChanged(text);
+    }
+
+    int getHighlightColor() {
+        return highlightColor;
+    }
+
+    void setHighlightColor(int color, Editable text) {
+        highlightColor = color;
+        if (text == null) {
+            return;
+        }
+        removeHighlights(text, 0, text.length());
+        if (color != 0) {
+            highlightOnly = true;
+            markDirty(0, text.length());
+            afterTextChanged(text);
+            highlightOnly = false;
+        }
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        markDirty(start, start + count);
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        KeywordDictionary dict = dictionary;
+        if (dict == null || dirtyStart < 0 || dict.size() == 0) {
+            dirtyStart = dirtyEnd = -1;
+            return;
+        }
+        int length = s.length();
+        dirtyStart = Math.min(dirtyStart, length);
+        dirtyEnd = Math.min(dirtyEnd, length);
+        int reach = dict.getMaxLength() - 1;
+        int from = Math.max(0, dirtyStart - reach);
+        int to = Math.min(length, dirtyEnd + reach);
+        if (highlightColor != 0) {
+            removeHighlights(s, dirtyStart, dirtyEnd);
+        }
+        scanning = s;
+        dict.scan(s, from, to, this);
+        scanning = null;
+        dirtyStart = dirtyEnd = -1;
+    }
+
+    @Override
+    public boolean onMatch(int start, int end) {
+        //与改动区间相邻的关键词也需要补上高亮，因为相邻的旧高亮已被移除
+        if (highlightColor != 0 && end >= dirtyStart && start <= dirtyEnd) {
+            scanning.setSpan(new KeywordSpan(highlightColor), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        //只有包含改动字符的关键词才是新出现的
+        if (!highlightOnly && start < dirtyEnd && end > dirtyStart) {
+            for (Object listener : listeners.snapshot()) {
+                ((EasyEditText.OnKeywordMatchListener) listener).onKeywordMatch(scanning, start, end);
+            }
+        }
+        return true;
+    }
+
+    private void markDirty(int start, int end) {
+        if (dirtyStart < 0) {
+            dirtyStart = start;
+            dirtyEnd = end;
+        } else {
+            dirtyStart = Math.min(dirtyStart, start);
+            dirtyEnd = Math.max(dirtyEnd, end);
+        }
+    }
+
+    /**
+     * 移除与[start, end]相交或相邻的高亮
+     */
+    private static void removeHighlights(Spannable text, int start, int end) {
+        KeywordSpan[] spans = text.getSpans(Math.max(0, start - 1), Math.min(text.length(), end + 1), KeywordSpan.class);
+        for (KeywordSpan span : spans) {
+            if (text.getSpanEnd(span) >= start && text.getSpanStart(span) <= end) {
+                text.removeSpan(span);
+            }
+        }
+    }
+
+    /**
+     * 关键词高亮，单独定义类型以免误删其他背景色
+     */
+    static final class KeywordSpan extends BackgroundColorSpan {
+        KeywordSpan(int color) {
+            super(color);
+        }
+    }
+
+    /**
+     * 拦截会产生关键词的输入和删除，只检查改动位置附近的窗口
+     * 删除时插入内容为空，检查的是删除后两侧拼接起来的文字
+     */
+    private final class BlockFilter implements InputFilter, KeywordDictionary.Visitor {
+        private final StringBuilder window = new StringBuilder();
+
+        private int insertStart;
+
+        private int insertEnd;
+
+        private boolean blocked;
+
+        @Override
+        public CharSequence filter(CharSequence source, int start, int end, Spanned dest, int dstart, int dend) {
+            KeywordDictionary dict = dictionary;
+            if (dict == null || dict.size() == 0 || (start == end && dstart == dend)) {
+                return null;
+            }
+            int reach = dict.getMaxLength() - 1;
+            int before = Math.max(0, dstart - reach);
+            int after = Math.min(dest.length(), dend + reach);
+            window.setLength(0);
+            window.append(dest, before, dstart);
+            insertStart = window.length();
+            window.append(source, start, end);
+            insertEnd = window.length();
+            window.append(dest, dend, after);
+            blocked = false;
+            dict.scan(window, 0, window.length(), this);
+            if (window.length() > 1024) {
+                window.setLength(0);
+                window.trimToSize();
+            }
+            //拒绝整个改动：保留原来被替换或删除的内容，否则拦截插入后剩下的删除仍可能拼出关键词
+            return blocked ? dest.subSequence(dstart, dend) : null;
+        }
+
+        @Override
+        public boolean onMatch(int start, int end) {
+            if (start < insertEnd && end > insertStart) {
+                blocked = true;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.lindroid.widget;
+
+/**
+ * @function 监听器列表
+ * @Description 写时复制：增删监听时生成新数组，分发时直接遍历当前数组的快照，
+ * 不会创建迭代器，监听在回调中注销自己也不会影响本轮分发
+ */
+final class ListenerList<T> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Object[] listeners = EMPTY;
+
+    /**
+     * 添加监听，重复添加无效
+     */
+    synchronized void add(T listener) {
+        if (listener == null || indexOf(listener) >= 0) {
+            return;
+        }
+        Object[] old = listeners;
+        Object[] copy = new Object[old.length + 1];
+        System.arraycopy(old, 0, copy, 0, old.length);
+        copy[old.length] = listener;
+        listeners = copy;
+    }
+
+    /**
+     * 移除监听
+     */
+    synchronized void remove(T listener) {
+        int index = indexOf(listener);
+        if (index < 0) {
+            return;
+        }
+        Object[] old = listeners;
+        if (old.length == 1) {
+            listeners = EMPTY;
+            return;
+        }
+        Object[] copy = new Object[old.length - 1];
+        System.arraycopy(old, 0, copy, 0, index);
+        System.arraycopy(old, index + 1, copy, index, old.length - index - 1);
+        listeners = copy;
+    }
+
+    /**
+     * 当前监听的快照，只读
+     */
+    Object[] snapshot() {
+        return listeners;
+    }
+
+    private int indexOf(Object listener) {
+        Object[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,139 @@
+package com.lindroid.widget;
+
+import android.text.GetChars;
+import android.text.SpanWatcher;
+import android.text.Spannable;
+import android.text.Spanned;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.text.method.PasswordTransformationMethod;
+import android.text.style.CharacterStyle;
+import android.text.style.UpdateLayout;
+import android.view.View;
+
+import java.lang.reflect.Array;
+
+/**
+ * @function 可切换明暗文的密码转换
+ * @Description 明文和暗文共用同一个显示文本，切换时只修改标记并通知文本上的SpanWatcher
+ * 有一个覆盖全文的UpdateLayout span，让现有的DynamicLayout原地重排一次，
+ * 不需要setTransformationMethod()重设文本和创建新的Layout，光标位置也保持不变。
+ * 继承PasswordTransformationMethod，系统仍会将其视为密码框。
+ */
+final class PasswordToggleTransformation extends PasswordTransformationMethod {
+    private boolean masked = true;
+
+    private final RelayoutSpan relayoutSpan = new RelayoutSpan();
+
+    boolean isMasked() {
+        return masked;
+    }
+
+    /**
+     * 切换明暗文
+     *
+     * @param text:输入框当前的文本，为null时只修改标记
+     */
+    void setMasked(boolean masked, Spannable text) {
+        if (this.masked == masked) {
+            return;
+        }
+        this.masked = masked;
+        if (text == null) {
+            return;
+        }
+        //span留在文本中会随输入扩展，每次输入都会重排全文，也会出现在getText()中；
+        //先添加再移除则会重排两次。这里只通知DynamicLayout等SpanWatcher，重排一次且不修改文本
+        int length = text.length();
+        SpanWatcher[] watchers = text.getSpans(0, length, SpanWatcher.class);
+        for (SpanWatcher watcher : watchers) {
+            watcher.onSpanAdded(text, relayoutSpan, 0, length);
+        }
+    }
+
+    @Override
+    public CharSequence getTransformation(CharSequence source, View view) {
+        return new ToggleText(source, super.getTransformation(source, view));
+    }
+
+    /**
+     * 触发重排的span，只用于通知，不会添加到文本中
+     */
+    private static final class RelayoutSpan extends CharacterStyle implements UpdateLayout {
+        @Override
+        public void updateDrawState(TextPaint tp) {
+        }
+    }
+
+    /**
+     * 根据当前标记返回原文或暗文的显示文本
+     */
+    private final class ToggleText implements CharSequence, GetChars, Spanned {
+        private final CharSequence source;
+
+        private final CharSequence hidden;
+
+        ToggleText(CharSequence source, CharSequence hidden) {
+            this.source = source;
+            this.hidden = hidden;
+        }
+
+        private CharSequence current() {
+            return masked ? hidden : source;
+        }
+
+        @Override
+        public int length() {
+            return source.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return current().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return current().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return current().toString();
+        }
+
+        @Override
+        public void getChars(int start, int end, char[] dest, int destoff) {
+            TextUtils.getChars(current(), start, end, dest, destoff);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T[] getSpans(int start, int end, Class<T> type) {
+            if (source instanceof Spanned) {
+                return ((Spanned) source).getSpans(start, end, type);
+            }
+            return (T[]) Array.newInstance(type, 0);
+        }
+
+        @Override
+        public int getSpanStart(Object tag) {
+            return source instanceof Spanned ? ((Spanned) source).getSpanStart(tag) : -1;
+        }
+
+        @Override
+        public int getSpanEnd(Object tag) {
+            return source instanceof Spanned ? ((Spanned) source).getSpanEnd(tag) : -1;
+        }
+
+        @Override
+        public int getSpanFlags(Object tag) {
+            return source instanceof Spanned ? ((Spanned) source).getSpanFlags(tag) : 0;
+        }
+
+        @Override
+        public int nextSpanTransition(int start, int limit, Class type) {
+            return source instanceof Spanned ? ((Spanned) source).nextSpanTransition(start, limit, type) : limit;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.lindroid.widget;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * @function 输入轨迹录制
+ * @Description 录制输入框收到的beforeTextChanged/onTextChanged序列，格式如下，整数均为无符号变长编码：
+ * <pre>
+ * "EETT" 版本号(1字节) 初始文本长度 初始文本的每个字符
+ * 事件：标记(1字节) 距上一事件的纳秒数 参数...
+ *   TAG_BEFORE：start count after
+ *   TAG_CHANGE：start before count 新增的每个字符
+ * TAG_END(1字节)
+ * </pre>
+ * 输入框自身在回调中引起的嵌套修改（如超过最大字数时的截断）不会被录制，回放时会重新产生。
+ */
+final class TypingTraceRecorder {
+    static final byte[] MAGIC = {'E', 'E', 'T', 'T'};
+    static final int VERSION = 1;
+    static final int TAG_END = 0;
+    static final int TAG_BEFORE = 1;
+    static final int TAG_CHANGE = 2;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(4 * 1024);
+
+    private long lastTime;
+
+    /**
+     * 当前的修改嵌套层数，只录制最外层的修改
+     */
+    private int depth = 0;
+
+    TypingTraceRecorder(CharSequence initialText) {
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        writeChars(initialText, 0, initialText.length());
+        lastTime = System.nanoTime();
+    }
+
+    void onBefore(int start, int count, int after) {
+        depth++;
+        if (depth != 1) {
+            return;
+        }
+        writeEvent(TAG_BEFORE);
+        writeVarInt(start);
+        writeVarInt(count);
+        writeVarInt(after);
+    }
+
+    void onChange(CharSequence s, int start, int before, int count) {
+        if (depth != 1) {
+            return;
+        }
+        writeEvent(TAG_CHANGE);
+        writeVarInt(start);
+        writeVarInt(before);
+        writeChars(s, start, start + count);
+    }
+
+    void onAfter() {
+        if (depth > 0) {
+            depth--;
+        }
+    }
+
+    /**
+     * 结束录制，返回完整的轨迹
+     */
+    byte[] finish() {
+        out.write(TAG_END);
+        return out.toByteArray();
+    }
+
+    private void writeEvent(int tag) {
+        long now = System.nanoTime();
+        out.write(tag);
+        writeVarLong(now - lastTime);
+        lastTime = now;
+    }
+
+    private void writeChars(CharSequence s, int start, int end) {
+        writeVarInt(end - start);
+        for (int i = start; i < end; i++) {
+            writeVarInt(s.charAt(i));
+        }
+    }
+
+    private void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
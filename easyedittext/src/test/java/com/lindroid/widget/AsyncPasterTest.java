@@ -0,0 +1,331 @@
+package com.lindroid.widget;
+
+import android.app.Activity;
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.text.InputFilter;
+import android.text.Spanned;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.util.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 后台粘贴：主线程上每个任务的耗时、分段插入和各种过滤
+ * 主线程的调度器处于暂停状态，每个任务单独执行并计时；后台任务由测试直接执行，不计入主线程耗时
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AsyncPasterTest {
+    /**
+     * 输入事件的ANR阈值
+     */
+    private static final long ANR_THRESHOLD_MS = 5000;
+
+    private EasyEditText editText;
+
+    private Scheduler scheduler;
+
+    private final List<Runnable> background = new ArrayList<>();
+
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        editText = new EasyEditText(activity);
+        activity.setContentView(editText, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        editText.setBackgroundExecutor(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                background.add(command);
+            }
+        });
+        editText.setAsyncPasteThreshold(1000);
+        editText.addOnPasteProgressListener(new EasyEditText.OnPasteProgressListener() {
+            @Override
+            public void onPasteStarted() {
+                events.add("started");
+            }
+
+            @Override
+            public void onPasteProgress(int inserted, int total) {
+                events.add(inserted + "/" + total);
+            }
+
+            @Override
+            public void onPasteFinished(boolean cancelled) {
+                events.add(cancelled ? "cancelled" : "finished");
+            }
+        });
+        scheduler = Robolectric.getForegroundThreadScheduler();
+        scheduler.advanceToLastPostedRunnable();
+        scheduler.pause();
+    }
+
+    @Test
+    public void largePaste_keepsEveryMainThreadTaskUnderAnrThreshold() {
+        pasteAndTimeTasks("lines", repeat("0123456789abcdef\n", 1024 * 1024 / 17));
+    }
+
+    /**
+     * 没有换行时每段插入都要重排整个段落，段落越长每段越小
+     */
+    @Test
+    public void singleParagraphPaste_keepsEveryMainThreadTaskUnderAnrThreshold() {
+        pasteAndTimeTasks("paragraph", repeat("0123456789abcdef", 1024 * 1024 / 16));
+    }
+
+    @Test
+    public void contentListener_notifiedOnceAfterAllChunks() {
+        final List<Integer> lengths = new ArrayList<>();
+        editText.addOnContentChangeListener(new EasyEditText.OnContentChangeListener() {
+            @Override
+            public void onChanged(@NonNull CharSequence content, int count) {
+                lengths.add(count);
+            }
+        });
+        String content = repeat("0123456789abcdef", 1024 * 1024 / 16);
+        pasteAndTimeTasks("contentListener", content);
+        assertEquals(Arrays.asList(content.length()), lengths);
+
+        //粘贴结束后的输入照常触发
+        editText.getText().append("x");
+        assertEquals(Arrays.asList(content.length(), content.length() + 1), lengths);
+    }
+
+    @Test
+    public void caretAtPastePoint_followsInsertedText() {
+        editText.setText("head");
+        editText.setSelection(4);
+        setClipboard(repeat("m", AsyncPaster.CHUNK_SIZE * 3));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        finishPaste();
+
+        assertEquals(editText.length(), editText.getSelectionStart());
+        assertEquals(editText.length(), editText.getSelectionEnd());
+    }
+
+    @Test
+    public void movedCaret_isNotPulledBack() {
+        editText.setText("head");
+        editText.setSelection(4);
+        setClipboard(repeat("m", AsyncPaster.CHUNK_SIZE * 3));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        runBackground();
+        advanceUntilLength(4 + AsyncPaster.CHUNK_SIZE);
+        editText.setSelection(1);
+        finishPaste();
+
+        assertEquals(4 + AsyncPaster.CHUNK_SIZE * 3, editText.length());
+        assertEquals(1, editText.getSelectionStart());
+        assertEquals(1, editText.getSelectionEnd());
+    }
+
+    /**
+     * 粘贴并逐个执行主线程任务，检查每个任务的耗时都低于ANR阈值
+     */
+    private void pasteAndTimeTasks(String name, String content) {
+        //先完成布局，分段插入时DynamicLayout会真实地重排
+        editText.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        editText.layout(0, 0, editText.getMeasuredWidth(), editText.getMeasuredHeight());
+        setClipboard(content);
+
+        long begin = System.nanoTime();
+        assertTrue(editText.onTextContextMenuItem(android.R.id.paste));
+        long longest = System.nanoTime() - begin;
+        assertEquals("nothing is inserted synchronously", 0, editText.length());
+        assertTrue(editText.isPasting());
+
+        runBackground();
+        int tasks = 0;
+        while (editText.isPasting()) {
+            begin = System.nanoTime();
+            assertTrue("paste stalled", scheduler.advanceToNextPostedRunnable());
+            longest = Math.max(longest, System.nanoTime() - begin);
+            tasks++;
+        }
+
+        System.out.println("AsyncPaster " + name + ": paste=" + content.length() + " chars, mainThreadTasks=" + tasks
+                + ", longestTask=" + TimeUnit.NANOSECONDS.toMillis(longest) + "ms");
+        assertEquals(content, editText.getText().toString());
+        assertTrue(tasks >= content.length() / AsyncPaster.MAX_CHUNK_SIZE);
+        assertTrue("longest main thread task " + TimeUnit.NANOSECONDS.toMillis(longest) + "ms",
+                longest < TimeUnit.MILLISECONDS.toNanos(ANR_THRESHOLD_MS));
+        assertEquals("finished", events.get(events.size() - 1));
+    }
+
+    @Test
+    public void smallPaste_staysSynchronous() {
+        setClipboard("short");
+        assertTrue(editText.onTextContextMenuItem(android.R.id.paste));
+        assertFalse(editText.isPasting());
+        assertTrue(background.isEmpty());
+        assertEquals("short", editText.getText().toString());
+    }
+
+    @Test
+    public void normalizesFiltersAndTruncatesInBackground() {
+        editText.setCharacterPolicy(new CharacterPolicy.Builder()
+                .allowPreset(CharacterPolicy.PRESET_DIGITS | CharacterPolicy.PRESET_WHITESPACE).build());
+        editText.setMaxCharacters(15000);
+        setClipboard(repeat("1a2\r\n", 10000));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        finishPaste();
+
+        String expected = repeat("12\n", 5000);
+        assertEquals(expected, editText.getText().toString());
+        assertEquals(expected.length() + "/" + expected.length(), events.get(events.size() - 2));
+    }
+
+    @Test
+    public void keywordBlocked_rejectsWholePasteInsteadOfDroppingChunks() {
+        editText.setKeywordDictionary(KeywordDictionary.compile(Arrays.asList("bad"), false));
+        editText.setKeywordBlocked(true);
+        //关键词位于第二段
+        setClipboard(repeat("x", AsyncPaster.CHUNK_SIZE + 100) + "bad" + repeat("y", 100));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        finishPaste();
+
+        assertEquals(0, editText.length());
+        assertEquals(Arrays.asList("started", "0/0", "finished"), events);
+    }
+
+    @Test
+    public void keywordBlocked_checksTextAroundInsertionPoint() {
+        editText.setKeywordDictionary(KeywordDictionary.compile(Arrays.asList("bad"), false));
+        editText.setKeywordBlocked(true);
+        editText.setText("ba");
+        editText.setSelection(2);
+        setClipboard("d" + repeat("z", 2000));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        finishPaste();
+
+        assertEquals("ba", editText.getText().toString());
+    }
+
+    @Test
+    public void keywordBlocked_insertsAllChunksWithoutKeyword() {
+        editText.setKeywordDictionary(KeywordDictionary.compile(Arrays.asList("bad"), false));
+        editText.setKeywordBlocked(true);
+        String content = repeat("good ", AsyncPaster.CHUNK_SIZE);
+        setClipboard(content);
+        editText.onTextContextMenuItem(android.R.id.paste);
+        finishPaste();
+
+        assertEquals(content, editText.getText().toString());
+    }
+
+    @Test
+    public void callerFilter_insertedCountReflectsActualText() {
+        editText.setFilters(new InputFilter[]{new InputFilter() {
+            @Override
+            public CharSequence filter(CharSequence source, int start, int end, Spanned dest, int dstart, int dend) {
+                StringBuilder kept = new StringBuilder(end - start);
+                for (int i = start; i < end; i++) {
+                    if (source.charAt(i) != 'x') {
+                        kept.append(source.charAt(i));
+                    }
+                }
+                return kept;
+            }
+        }});
+        setClipboard(repeat("ax", AsyncPaster.CHUNK_SIZE));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        finishPaste();
+
+        assertEquals(repeat("a", AsyncPaster.CHUNK_SIZE), editText.getText().toString());
+        String total = String.valueOf(AsyncPaster.CHUNK_SIZE * 2);
+        assertEquals(AsyncPaster.CHUNK_SIZE + "/" + total, events.get(events.size() - 2));
+    }
+
+    @Test
+    public void typingDuringPaste_stillRespectsMaxCharacters() {
+        final int[] alerts = new int[1];
+        editText.addMaxCharsListener(new EasyEditText.OnMaxCharactersListener() {
+            @Override
+            public void onMaxChars(int maxChars, @NonNull String alertText) {
+                alerts[0]++;
+            }
+        });
+        editText.setMaxCharacters(AsyncPaster.CHUNK_SIZE * 2);
+        setClipboard(repeat("p", AsyncPaster.CHUNK_SIZE * 2));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        runBackground();
+        advanceUntilLength(AsyncPaster.CHUNK_SIZE);
+        assertEquals(AsyncPaster.CHUNK_SIZE, editText.length());
+        editText.getText().insert(0, "typed");
+        finishPaste();
+
+        assertEquals(AsyncPaster.CHUNK_SIZE * 2, editText.length());
+        assertTrue(editText.getText().toString().startsWith("typed"));
+        assertEquals(1, alerts[0]);
+    }
+
+    @Test
+    public void cancel_keepsInsertedChunks() {
+        setClipboard(repeat("c", AsyncPaster.CHUNK_SIZE * 3));
+        editText.onTextContextMenuItem(android.R.id.paste);
+        runBackground();
+        advanceUntilLength(AsyncPaster.CHUNK_SIZE);
+        editText.cancelPaste();
+
+        assertEquals(AsyncPaster.CHUNK_SIZE, editText.length());
+        assertFalse(editText.isPasting());
+        assertEquals("cancelled", events.get(events.size() - 1));
+    }
+
+    private void setClipboard(String content) {
+        ClipboardManager clipboard = (ClipboardManager) editText.getContext().getSystemService(Context.CLIPBOARD_SERVICE);
+        clipboard.setPrimaryClip(ClipData.newPlainText("paste", content));
+    }
+
+    private void runBackground() {
+        while (!background.isEmpty()) {
+            background.remove(0).run();
+        }
+    }
+
+    /**
+     * 逐个执行主线程任务，直到插入了指定长度的内容
+     */
+    private void advanceUntilLength(int length) {
+        for (int i = 0; editText.length() < length; i++) {
+            assertTrue("paste stalled", i < 100 && scheduler.advanceToNextPostedRunnable());
+        }
+    }
+
+    private void finishPaste() {
+        runBackground();
+        for (int i = 0; editText.isPasting(); i++) {
+            assertTrue("paste stalled", i < 10000 && scheduler.advanceToNextPostedRunnable());
+            runBackground();
+        }
+    }
+
+    private static String repeat(String piece, int times) {
+        StringBuilder builder = new StringBuilder(piece.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(piece);
+        }
+        return builder.toString();
+    }
+}
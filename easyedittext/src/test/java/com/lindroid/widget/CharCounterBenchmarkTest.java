@@ -0,0 +1,135 @@
+package com.lindroid.widget;
+
+import android.content.Context;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 输入框内绘制的字数统计与外部TextView显示字数比较每次输入的耗时和布局次数
+ * 外部TextView的宽度为WRAP_CONTENT，每次setText()都会请求重新布局；每次输入后有布局请求时执行一次measure和layout，相当于一帧
+ * 耗时只输出，不作断言
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CharCounterBenchmarkTest {
+    private static final int KEYSTROKES = 2000;
+
+    private static final int MAX_CHARACTERS = 5000;
+
+    private static final int WARMUP_ROUNDS = 2;
+
+    private static final int ROUNDS = 5;
+
+    private static final int WIDTH = 480;
+
+    private static final int FIELD_HEIGHT = 120;
+
+    private final Context context = RuntimeEnvironment.application;
+
+    @Test
+    public void inFieldCounter_vsExternalTextView() {
+        Result inField = null;
+        Result external = null;
+        for (int i = 0; i < WARMUP_ROUNDS + ROUNDS; i++) {
+            Result a = typeWithInFieldCounter();
+            Result b = typeWithExternalCounter();
+            if (i >= WARMUP_ROUNDS) {
+                inField = inField == null || a.nanos < inField.nanos ? a : inField;
+                external = external == null || b.nanos < external.nanos ? b : external;
+            }
+        }
+
+        System.out.println("CharCounter keystrokes=" + KEYSTROKES
+                + ": inField=" + inField.nanos / 1000 + "us, layouts=" + inField.layouts
+                + "; externalTextView=" + external.nanos / 1000 + "us, layouts=" + external.layouts);
+        assertEquals(KEYSTROKES, external.layouts);
+        assertTrue("in-field layouts " + inField.layouts, inField.layouts < external.layouts);
+    }
+
+    private Result typeWithInFieldCounter() {
+        LinearLayout root = newRoot();
+        EasyEditText editText = newEditText(root);
+        editText.setShowCharCounter(true);
+        return type(root, editText);
+    }
+
+    private Result typeWithExternalCounter() {
+        LinearLayout root = newRoot();
+        EasyEditText editText = newEditText(root);
+        final TextView counter = new TextView(context);
+        root.addView(counter, new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        editText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                counter.setText(s.length() + " / " + MAX_CHARACTERS);
+            }
+        });
+        return type(root, editText);
+    }
+
+    private LinearLayout newRoot() {
+        LinearLayout root = new LinearLayout(context);
+        root.setOrientation(LinearLayout.VERTICAL);
+        return root;
+    }
+
+    private EasyEditText newEditText(LinearLayout root) {
+        EasyEditText editText = new EasyEditText(context);
+        editText.setSingleLine();
+        editText.setMaxCharacters(MAX_CHARACTERS);
+        root.addView(editText, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, FIELD_HEIGHT));
+        return editText;
+    }
+
+    private Result type(LinearLayout root, EditText editText) {
+        layout(root);
+        Editable text = editText.getText();
+        int layouts = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < KEYSTROKES; i++) {
+            text.append('a');
+            if (root.isLayoutRequested()) {
+                layout(root);
+                layouts++;
+            }
+        }
+        return new Result(System.nanoTime() - begin, layouts);
+    }
+
+    private static void layout(View root) {
+        root.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+    }
+
+    private static final class Result {
+        final long nanos;
+        final int layouts;
+
+        Result(long nanos, int layouts) {
+            this.nanos = nanos;
+            this.layouts = layouts;
+        }
+    }
+}
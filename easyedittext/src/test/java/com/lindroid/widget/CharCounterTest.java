@@ -0,0 +1,153 @@
+package com.lindroid.widget;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 字数统计：预留的上下边距、刷新区域和与右侧图标的位置关系
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CharCounterTest {
+    private static final int WIDTH = 480;
+
+    private RecordingEditText editText;
+
+    private int basePaddingTop;
+
+    private int basePaddingBottom;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        editText = new RecordingEditText(activity);
+        activity.setContentView(editText, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        basePaddingTop = editText.getCompoundPaddingTop();
+        basePaddingBottom = editText.getCompoundPaddingBottom();
+        editText.setMaxCharacters(100);
+        editText.setShowCharCounter(true);
+        layout();
+    }
+
+    @Test
+    public void bottomPosition_reservesCounterHeightBelowText() {
+        editText.getText().append("a");
+        int height = editText.getCounterBounds().height();
+        assertTrue(height > 0);
+        assertEquals(basePaddingTop, editText.getCompoundPaddingTop());
+        assertEquals(basePaddingBottom + height, editText.getCompoundPaddingBottom());
+        assertEquals(editText.getHeight() - editText.getPaddingBottom(), editText.getCounterBounds().bottom);
+    }
+
+    @Test
+    public void topPosition_reservesCounterHeightAboveText() {
+        editText.setCharCounterPosition(EasyEditText.COUNTER_TOP_END);
+        layout();
+        editText.getText().append("a");
+        int height = editText.getCounterBounds().height();
+        assertEquals(basePaddingTop + height, editText.getCompoundPaddingTop());
+        assertEquals(basePaddingBottom, editText.getCompoundPaddingBottom());
+        assertEquals(editText.getPaddingTop(), editText.getCounterBounds().top);
+    }
+
+    @Test
+    public void hidingCounter_restoresPadding() {
+        editText.setShowCharCounter(false);
+        assertEquals(basePaddingTop, editText.getCompoundPaddingTop());
+        assertEquals(basePaddingBottom, editText.getCompoundPaddingBottom());
+    }
+
+    @Test
+    public void typing_invalidatesOnlyCounterBounds() {
+        editText.dirty.clear();
+        editText.getText().append("a");
+
+        Rect bounds = editText.getCounterBounds();
+        assertFalse(editText.dirty.isEmpty());
+        assertEquals(bounds, editText.dirty.get(editText.dirty.size() - 1));
+        assertTrue(bounds.width() < editText.getWidth());
+        assertTrue(bounds.height() < editText.getHeight());
+        assertEquals(editText.getWidth() - editText.getCompoundPaddingRight(), bounds.right);
+    }
+
+    @Test
+    public void sameDisplay_doesNotInvalidate() {
+        editText.getText().append("a");
+        editText.dirty.clear();
+        //字数不变的替换
+        editText.getText().replace(0, 1, "b");
+        assertTrue(editText.dirty.isEmpty());
+    }
+
+    @Test
+    public void bottomEnd_doesNotOverlapClearIcon() {
+        editText.setShowClearButton(true);
+        editText.getText().append("a");
+        layout();
+        editText.getText().append("b");
+
+        Drawable icon = editText.getCompoundDrawables()[2];
+        assertNotNull(icon);
+        assertTrue(editText.getCompoundPaddingRight() >= editText.getPaddingRight() + icon.getIntrinsicWidth());
+        Rect iconBounds = new Rect(editText.getWidth() - editText.getPaddingRight() - icon.getIntrinsicWidth(), 0,
+                editText.getWidth() - editText.getPaddingRight(), editText.getHeight());
+        Rect bounds = editText.getCounterBounds();
+        assertFalse(Rect.intersects(iconBounds, bounds));
+        assertEquals(editText.getWidth() - editText.getCompoundPaddingRight(), bounds.right);
+        assertEquals(bounds, editText.dirty.get(editText.dirty.size() - 1));
+    }
+
+    @Test
+    public void bottomStart_alignsWithTextStart() {
+        editText.setCharCounterPosition(EasyEditText.COUNTER_BOTTOM_START);
+        editText.getText().append("a");
+        assertEquals(editText.getCompoundPaddingLeft(), editText.getCounterBounds().left);
+    }
+
+    private void layout() {
+        editText.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        editText.layout(0, 0, editText.getMeasuredWidth(), editText.getMeasuredHeight());
+    }
+
+    /**
+     * 记录局部刷新的区域
+     */
+    private static final class RecordingEditText extends EasyEditText {
+        /**
+         * 父类构造方法中也可能调用invalidate(Rect)，此时还没有初始化
+         */
+        final List<Rect> dirty = new ArrayList<>();
+
+        RecordingEditText(Context context) {
+            super(context);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void invalidate(Rect dirty) {
+            if (this.dirty != null) {
+                this.dirty.add(new Rect(dirty));
+            }
+            super.invalidate(dirty);
+        }
+    }
+}
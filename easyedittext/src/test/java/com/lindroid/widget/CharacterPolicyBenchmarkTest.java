@@ -0,0 +1,88 @@
+package com.lindroid.widget;
+
+import android.text.Spanned;
+import android.text.SpannedString;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 1MB粘贴内容：字符规则过滤与等价的正则InputFilter比较结果和耗时
+ * 粘贴内容由固定的seed生成，耗时只输出，不作断言
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CharacterPolicyBenchmarkTest {
+    private static final int PASTE_LENGTH = 1024 * 1024;
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private static final int ROUNDS = 5;
+
+    private static final Spanned EMPTY = new SpannedString("");
+
+    private static String paste;
+
+    @BeforeClass
+    public static void createPaste() {
+        //数字、分隔符、英文、汉字和emoji混合
+        String[] pieces = {"0123456789", "-", " ", "abcXYZ", "中文输入", "😀", "\n"};
+        Random random = new Random(1024);
+        StringBuilder builder = new StringBuilder(PASTE_LENGTH + 16);
+        while (builder.length() < PASTE_LENGTH) {
+            String piece = pieces[random.nextInt(pieces.length)];
+            int length = 1 + random.nextInt(piece.length());
+            if (Character.isHighSurrogate(piece.charAt(length - 1))) {
+                length++;
+            }
+            builder.append(piece, 0, length);
+        }
+        paste = builder.toString();
+    }
+
+    @Test
+    public void digitsAndSeparators() {
+        compare("digits+separators",
+                new CharacterPolicy.Builder().allowPreset(CharacterPolicy.PRESET_DIGITS).allow("- ").build(),
+                Pattern.compile("[^0-9\\- ]"));
+    }
+
+    @Test
+    public void printableAscii() {
+        compare("ascii",
+                new CharacterPolicy.Builder().allowPreset(CharacterPolicy.PRESET_ASCII).build(),
+                Pattern.compile("[^\\x20-\\x7E]"));
+    }
+
+    private void compare(String name, CharacterPolicy policy, Pattern rejected) {
+        CharacterPolicyFilter filter = new CharacterPolicyFilter(new EasyEditText(RuntimeEnvironment.application));
+        filter.setPolicy(policy);
+        assertEquals(rejected.matcher(paste).replaceAll(""), String.valueOf(filter.filter(paste, 0, paste.length(), EMPTY, 0, 0)));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            filter.filter(paste, 0, paste.length(), EMPTY, 0, 0);
+            rejected.matcher(paste).replaceAll("");
+        }
+        long policyNanos = Long.MAX_VALUE;
+        long regexNanos = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long begin = System.nanoTime();
+            filter.filter(paste, 0, paste.length(), EMPTY, 0, 0);
+            policyNanos = Math.min(policyNanos, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            rejected.matcher(paste).replaceAll("");
+            regexNanos = Math.min(regexNanos, System.nanoTime() - begin);
+        }
+        System.out.println("CharacterPolicy " + name + ": paste=" + paste.length() + " chars"
+                + ", policy=" + policyNanos / 1000 + "us"
+                + ", regex=" + regexNanos / 1000 + "us");
+    }
+}
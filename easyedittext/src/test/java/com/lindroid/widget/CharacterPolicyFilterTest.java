@@ -0,0 +1,106 @@
+package com.lindroid.widget;
+
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.SpannedString;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 字符规则过滤与最大输入字符数截断
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CharacterPolicyFilterTest {
+    private static final Spanned EMPTY = new SpannedString("");
+
+    private EasyEditText editText;
+
+    private CharacterPolicyFilter filter;
+
+    @Before
+    public void setUp() {
+        editText = new EasyEditText(RuntimeEnvironment.application);
+        filter = new CharacterPolicyFilter(editText);
+    }
+
+    @Test
+    public void acceptedInput_returnsNull() {
+        filter.setPolicy(new CharacterPolicy.Builder().allowPreset(CharacterPolicy.PRESET_DIGITS).build());
+        assertNull(filter.filter("123", 0, 3, EMPTY, 0, 0));
+    }
+
+    @Test
+    public void rejectedCharacters_areRemoved() {
+        filter.setPolicy(new CharacterPolicy.Builder().allowPreset(CharacterPolicy.PRESET_DIGITS).build());
+        assertEquals("123", filter.filter("1a2b3", 0, 5, EMPTY, 0, 0).toString());
+    }
+
+    @Test
+    public void filterAndTruncate_inOnePass() {
+        filter.setPolicy(new CharacterPolicy.Builder().allowPreset(CharacterPolicy.PRESET_DIGITS).build());
+        editText.setMaxCharacters(4);
+        Spanned dest = new SpannedString("12");
+        assertEquals("34", filter.filter("3x456", 0, 5, dest, 2, 2).toString());
+    }
+
+    @Test
+    public void spannedSource_keepsComposingSpan() {
+        filter.setPolicy(new CharacterPolicy.Builder().deny("!").build());
+        SpannableStringBuilder source = new SpannableStringBuilder("ab!c");
+        Object composing = new Object();
+        source.setSpan(composing, 0, 4, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE | Spanned.SPAN_COMPOSING);
+
+        CharSequence result = filter.filter(source, 0, 4, EMPTY, 0, 0);
+        assertEquals("abc", result.toString());
+        assertTrue(result instanceof Spanned);
+        Spanned spanned = (Spanned) result;
+        assertEquals(0, spanned.getSpanStart(composing));
+        assertEquals(3, spanned.getSpanEnd(composing));
+        assertTrue((spanned.getSpanFlags(composing) & Spanned.SPAN_COMPOSING) != 0);
+    }
+
+    @Test
+    public void spannedSource_filterAndTruncate_keepsSpans() {
+        filter.setPolicy(new CharacterPolicy.Builder().deny("!").build());
+        editText.setMaxCharacters(2);
+        SpannableStringBuilder source = new SpannableStringBuilder("a!bc");
+        Object span = new Object();
+        source.setSpan(span, 0, 4, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        Spanned result = (Spanned) filter.filter(source, 0, 4, EMPTY, 0, 0);
+        assertEquals("ab", result.toString());
+        assertEquals(0, result.getSpanStart(span));
+        assertEquals(2, result.getSpanEnd(span));
+    }
+
+    @Test
+    public void surrogatePairStraddlingSliceEnd_isNotReadPastEnd() {
+        filter.setPolicy(new CharacterPolicy.Builder().deny("x").build());
+        //片段[0, 2)只包含emoji的高位代理
+        String source = "x😀";
+        assertEquals("\uD83D", filter.filter(source, 0, 2, EMPTY, 0, 0).toString());
+    }
+
+    @Test
+    public void supplementaryCharacters_useRangeFallback() {
+        filter.setPolicy(new CharacterPolicy.Builder().allowPreset(CharacterPolicy.PRESET_LETTERS)
+                .allowRange(0x1F600, 0x1F64F).build());
+        String source = "a😀🍎1";
+        assertEquals("a😀", filter.filter(source, 0, source.length(), EMPTY, 0, 0).toString());
+    }
+
+    @Test
+    public void installedFilter_appliesToSetText() {
+        editText.setCharacterPolicy(new CharacterPolicy.Builder().allowPreset(CharacterPolicy.PRESET_DIGITS).build());
+        editText.setText("a1b2");
+        assertEquals("12", editText.getText().toString());
+    }
+}
@@ -0,0 +1,274 @@
+package com.lindroid.widget;
+
+import android.content.ClipData;
+import android.content.ClipboardManager;
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.text.Editable;
+import android.text.InputType;
+
+import org.robolectric.Robolectric;
+import org.robolectric.util.Scheduler;
+
+import java.util.Random;
+
+/**
+ * @function 随机压力测试
+ * @Description 对输入框执行大量随机的插入、删除、替换、粘贴、setText、右侧图标点击和输入类型切换，
+ * 每一步之后检查输入框的派生状态是否与实际内容一致、内容是否符合字符规则，同时统计吞吐量。
+ * 在Robolectric中运行，输入框需要已添加到窗口中，配置由调用方事先设置好。
+ * 粘贴通过剪贴板和onTextContextMenuItem()完成，内容较多时走后台粘贴：
+ * 主线程的调度器会被暂停，每一步之后只执行一个主线程任务，后台粘贴因此会与之后的随机编辑交错进行。
+ * 相同的seed会产生相同的操作序列，后台执行器同步执行时结果也相同，出错时可以据此复现。
+ */
+final class EasyEditTextSoak {
+    private static final String ALPHABET = "abcxyzABC019 中文😀";
+
+    private static final int OP_INSERT = 0;
+    private static final int OP_DELETE = 1;
+    private static final int OP_REPLACE = 2;
+    private static final int OP_PASTE = 3;
+    private static final int OP_SET_TEXT = 4;
+    private static final int OP_ICON_CLICK = 5;
+    private static final int OP_INPUT_TYPE = 6;
+    private static final String[] OP_NAMES = {"insert", "delete", "replace", "paste", "setText", "iconClick", "inputType"};
+
+    /**
+     * 随机切换的输入类型，包括带标志位的密码类型
+     */
+    private static final int[] INPUT_TYPES = {
+            InputType.TYPE_CLASS_TEXT,
+            InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD,
+            InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_VISIBLE_PASSWORD,
+            InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD | InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS,
+    };
+
+    private final EasyEditText editText;
+
+    private final ClipboardManager clipboard;
+
+    private final Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+
+    private final Random random;
+
+    private final long seed;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private final int[] opCounts = new int[OP_NAMES.length];
+
+    /**
+     * 最近一次收到的是否为空的回调
+     */
+    private boolean lastReportedEmpty;
+
+    private final EasyEditText.OnEmptyChangeListener emptyListener = new EasyEditText.OnEmptyChangeListener() {
+        @Override
+        public void onEmpty(boolean isEmpty) {
+            lastReportedEmpty = isEmpty;
+        }
+    };
+
+    EasyEditTextSoak(@NonNull EasyEditText editText, long seed) {
+        this.editText = editText;
+        this.clipboard = (ClipboardManager) editText.getContext().getSystemService(Context.CLIPBOARD_SERVICE);
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 压力测试结果
+     */
+    static final class Report {
+        private final int steps;
+        private final long elapsedNanos;
+        private final int[] opCounts;
+
+        Report(int steps, long elapsedNanos, int[] opCounts) {
+            this.steps = steps;
+            this.elapsedNanos = elapsedNanos;
+            this.opCounts = opCounts;
+        }
+
+        public int getSteps() {
+            return steps;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * 每秒执行的操作数，包括每步之后的状态检查
+         */
+        public double getOpsPerSecond() {
+            return elapsedNanos == 0 ? 0 : steps * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("steps=").append(steps)
+                    .append(", elapsed=").append(elapsedNanos / 1000000).append("ms")
+                    .append(", ops/s=").append((long) getOpsPerSecond());
+            for (int i = 0; i < OP_NAMES.length; i++) {
+                builder.append(", ").append(OP_NAMES[i]).append('=').append(opCounts[i]);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * 执行压力测试，需要在主线程调用
+     *
+     * @param steps:随机操作的次数
+     * @throws IllegalStateException 状态不一致时抛出，信息中包含seed、步数和操作
+     */
+    @NonNull
+    Report run(int steps) {
+        editText.addEmptyChangeListener(emptyListener);
+        lastReportedEmpty = editText.length() == 0;
+        boolean wasPaused = scheduler.isPaused();
+        scheduler.pause();
+        try {
+            long begin = System.nanoTime();
+            for (int step = 0; step < steps; step++) {
+                int op = nextOp();
+                apply(op);
+                opCounts[op]++;
+                check(step, op);
+                //相当于过了一帧，后台粘贴的分段插入、自动切回暗文等任务在这里执行
+                if (scheduler.size() > 0) {
+                    scheduler.advanceToNextPostedRunnable();
+                    check(step, op);
+                }
+            }
+            //等待未完成的后台粘贴
+            for (int i = 0; editText.isPasting(); i++) {
+                if (i > 1000 || !scheduler.advanceToNextPostedRunnable()) {
+                    fail(steps, OP_PASTE, "paste did not finish");
+                }
+            }
+            check(steps, OP_PASTE);
+            return new Report(steps, System.nanoTime() - begin, opCounts.clone());
+        } finally {
+            editText.removeEmptyChangeListener(emptyListener);
+            if (!wasPaused) {
+                scheduler.unPause();
+            }
+        }
+    }
+
+    private int nextOp() {
+        int roll = random.nextInt(100);
+        if (roll < 40) {
+            return OP_INSERT;
+        } else if (roll < 65) {
+            return OP_DELETE;
+        } else if (roll < 80) {
+            return OP_REPLACE;
+        } else if (roll < 88) {
+            return OP_PASTE;
+        } else if (roll < 95) {
+            return OP_SET_TEXT;
+        } else if (roll < 99) {
+            return OP_ICON_CLICK;
+        }
+        return OP_INPUT_TYPE;
+    }
+
+    private void apply(int op) {
+        Editable text = editText.getText();
+        int length = text == null ? 0 : text.length();
+        int start = random.nextInt(length + 1);
+        int end = start + random.nextInt(length - start + 1);
+        switch (op) {
+            case OP_INSERT:
+                text.replace(start, start, randomText(1 + random.nextInt(3)));
+                break;
+            case OP_DELETE:
+                text.delete(start, end);
+                break;
+            case OP_REPLACE:
+                text.replace(start, end, randomText(1 + random.nextInt(8)));
+                break;
+            case OP_PASTE:
+                paste(start, end);
+                break;
+            case OP_SET_TEXT:
+                editText.setText(random.nextInt(4) == 0 ? "" : randomText(random.nextInt(200)));
+                break;
+            case OP_ICON_CLICK:
+                editText.onRightIconClick();
+                break;
+            case OP_INPUT_TYPE:
+                editText.setInputType(INPUT_TYPES[random.nextInt(INPUT_TYPES.length)]);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 通过剪贴板粘贴并替换[start, end)，约三成的内容达到后台粘贴的阈值
+     */
+    private void paste(int start, int end) {
+        int threshold = editText.getAsyncPasteThreshold();
+        int length;
+        if (threshold > 0 && random.nextInt(10) < 3) {
+            length = threshold + random.nextInt(AsyncPaster.CHUNK_SIZE * 2);
+        } else {
+            length = 1 + random.nextInt(threshold > 1 ? Math.min(threshold - 1, 500) : 500);
+        }
+        clipboard.setPrimaryClip(ClipData.newPlainText("soak", randomText(length)));
+        editText.setSelection(start, end);
+        editText.onTextContextMenuItem(android.R.id.paste);
+    }
+
+    private CharSequence randomText(int length) {
+        buffer.setLength(0);
+        while (buffer.length() < length) {
+            int index = random.nextInt(ALPHABET.length());
+            char c = ALPHABET.charAt(index);
+            if (Character.isHighSurrogate(c)) {
+                buffer.append(c).append(ALPHABET.charAt(index + 1));
+            } else if (!Character.isLowSurrogate(c)) {
+                buffer.append(c);
+            }
+        }
+        return buffer.toString();
+    }
+
+    private void check(int step, int op) {
+        int length = editText.length();
+        int maxCharacters = editText.getMaxCharacters();
+        if (maxCharacters > 0 && editText.isMaxCharsLimited() && length > maxCharacters) {
+            fail(step, op, "length " + length + " exceeds maxCharacters " + maxCharacters);
+        }
+        if (editText.isShowClearButton() && editText.isRightIconShown() != (length > 0)) {
+            fail(step, op, "clear icon shown=" + editText.isRightIconShown() + " with length " + length);
+        }
+        if (lastReportedEmpty != (length == 0)) {
+            fail(step, op, "empty listener reported " + lastReportedEmpty + " with length " + length);
+        }
+        CharacterPolicy policy = editText.getCharacterPolicy();
+        if (policy != null) {
+            CharSequence text = editText.getText();
+            for (int i = 0; i < length; ) {
+                int codePoint = Character.codePointAt(text, i);
+                if (!policy.accepts(codePoint)) {
+                    fail(step, op, "rejected character U+" + Integer.toHexString(codePoint) + " at " + i);
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+        boolean masked = editText.isContentMasked();
+        if (masked == editText.isContentDisplayed()) {
+            fail(step, op, "masked=" + masked + " but isDisplayContent=" + editText.isContentDisplayed());
+        }
+    }
+
+    private void fail(int step, int op, String message) {
+        throw new IllegalStateException("seed=" + seed + ", step=" + step + ", op=" + OP_NAMES[op] + ": " + message);
+    }
+}
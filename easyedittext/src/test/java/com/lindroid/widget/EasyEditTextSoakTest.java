@@ -0,0 +1,133 @@
+package com.lindroid.widget;
+
+import android.app.Activity;
+import android.support.annotation.NonNull;
+import android.text.InputType;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * 以不同的seed和配置执行随机压力测试
+ * 默认每次执行20000步，可以通过-Deet.soak.steps=1000000执行更多步数
+ */
+@RunWith(RobolectricTestRunner.class)
+public class EasyEditTextSoakTest {
+    private static final long[] SEEDS = {1L, 42L, 20190411L};
+
+    private static final int STEPS = Integer.getInteger("eet.soak.steps", 20000);
+
+    /**
+     * 较低的阈值使一部分粘贴走后台粘贴
+     */
+    private static final int ASYNC_PASTE_THRESHOLD = 256;
+
+    /**
+     * 输入框的配置
+     */
+    private interface Config {
+        void apply(EasyEditText editText);
+    }
+
+    private Activity activity;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    @Test
+    public void plain() {
+        soak("plain", new Config() {
+            @Override
+            public void apply(EasyEditText editText) {
+            }
+        });
+    }
+
+    @Test
+    public void maxCharactersLimited() {
+        soak("limited", new Config() {
+            @Override
+            public void apply(EasyEditText editText) {
+                editText.setMaxCharacters(100);
+            }
+        });
+    }
+
+    @Test
+    public void maxCharactersNotLimited() {
+        soak("notLimited", new Config() {
+            @Override
+            public void apply(EasyEditText editText) {
+                editText.setMaxCharacters(100);
+                editText.setMaxCharsLimited(false);
+            }
+        });
+    }
+
+    @Test
+    public void clearButton() {
+        soak("clearButton", new Config() {
+            @Override
+            public void apply(EasyEditText editText) {
+                editText.setShowClearButton(true);
+            }
+        });
+    }
+
+    @Test
+    public void passwordToggle() {
+        soak("passwordToggle", new Config() {
+            @Override
+            public void apply(EasyEditText editText) {
+                editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+                editText.setShowPlainCipherToggle(true);
+                editText.setAutoMaskDelay(50);
+            }
+        });
+    }
+
+    @Test
+    public void limitedWithClearButtonPolicyAndKeywords() {
+        soak("combined", new Config() {
+            @Override
+            public void apply(EasyEditText editText) {
+                editText.setMaxCharacters(200);
+                editText.setShowClearButton(true);
+                //拒绝字母表中的一个BMP字符和emoji，过滤与截断同时生效
+                editText.setCharacterPolicy(new CharacterPolicy.Builder().deny("x😀").build());
+                editText.setKeywordDictionary(KeywordDictionary.compile(Arrays.asList("abc", "中文"), false));
+                editText.setKeywordHighlightColor(0x66FF0000);
+                editText.setKeywordBlocked(true);
+                editText.setShowCharCounter(true);
+            }
+        });
+    }
+
+    private void soak(String name, Config config) {
+        for (long seed : SEEDS) {
+            EasyEditText editText = new EasyEditText(activity);
+            activity.setContentView(editText, new ViewGroup.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            //后台任务同步执行，保证相同的seed得到相同的结果
+            editText.setBackgroundExecutor(new Executor() {
+                @Override
+                public void execute(@NonNull Runnable command) {
+                    command.run();
+                }
+            });
+            editText.setAsyncPasteThreshold(ASYNC_PASTE_THRESHOLD);
+            config.apply(editText);
+            EasyEditTextSoak.Report report = new EasyEditTextSoak(editText, seed).run(STEPS);
+            System.out.println("EasyEditTextSoak " + name + " seed=" + seed + ": " + report);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.lindroid.widget;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 20000个关键词的词典：与逐个关键词indexOf的暴力查找比较结果和吞吐量
+ * 关键词和文本都由固定的seed生成，结果可以复现；耗时只输出，不作断言
+ */
+public class KeywordDictionaryBenchmarkTest {
+    private static final int TERM_COUNT = 20000;
+
+    /**
+     * 关键词和文本使用的字符，约200个汉字，短关键词在随机文本中有适量的命中
+     */
+    private static final int ALPHABET_START = 0x4E00;
+    private static final int ALPHABET_SIZE = 200;
+
+    private static final int ROUNDS = 5;
+
+    private static List<String> terms;
+
+    @BeforeClass
+    public static void createTerms() {
+        Random random = new Random(20000);
+        terms = new ArrayList<>(TERM_COUNT);
+        for (int i = 0; i < TERM_COUNT; i++) {
+            terms.add(randomText(random, 2 + random.nextInt(5)));
+        }
+    }
+
+    @Test
+    public void scan_matchesBruteForce() {
+        KeywordDictionary dictionary = KeywordDictionary.compile(terms, false);
+        String text = createText(new Random(1), 20000);
+        List<Long> expected = bruteForce(text);
+        List<Long> actual = scan(dictionary, text, 0, text.length());
+        assertTrue("text should contain keywords", expected.size() > 100);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void scan_windowMatchesBruteForceInsideWindow() {
+        KeywordDictionary dictionary = KeywordDictionary.compile(terms, false);
+        String text = createText(new Random(2), 5000);
+        int from = 1234;
+        int to = 3210;
+        List<Long> expected = new ArrayList<>();
+        for (long match : bruteForce(text)) {
+            if (start(match) >= from && end(match) <= to) {
+                expected.add(match);
+            }
+        }
+        assertEquals(expected, scan(dictionary, text, from, to));
+    }
+
+    @Test
+    public void scan_ignoreCase() {
+        List<String> words = new ArrayList<>();
+        words.add("Spam");
+        words.add("am");
+        KeywordDictionary dictionary = KeywordDictionary.compile(words, true);
+        List<Long> matches = scan(dictionary, "no SPAM here", 0, 12);
+        assertEquals(2, matches.size());
+        assertEquals(3, start(matches.get(0)));
+        assertEquals(7, end(matches.get(0)));
+        assertEquals(5, start(matches.get(1)));
+        assertEquals(7, end(matches.get(1)));
+    }
+
+    @Test
+    public void benchmark() {
+        long compileNanos = Long.MAX_VALUE;
+        KeywordDictionary dictionary = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            long begin = System.nanoTime();
+            dictionary = KeywordDictionary.compile(terms, false);
+            compileNanos = Math.min(compileNanos, System.nanoTime() - begin);
+        }
+
+        String text = createText(new Random(3), 1024 * 1024);
+        CountingVisitor visitor = new CountingVisitor();
+        long scanNanos = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            visitor.count = 0;
+            long begin = System.nanoTime();
+            dictionary.scan(text, 0, text.length(), visitor);
+            scanNanos = Math.min(scanNanos, System.nanoTime() - begin);
+        }
+
+        //暴力查找太慢，只用较短的文本
+        String shortText = text.substring(0, 20000);
+        long bruteNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long begin = System.nanoTime();
+            bruteForce(shortText);
+            bruteNanos = Math.min(bruteNanos, System.nanoTime() - begin);
+        }
+
+        System.out.println("KeywordDictionary: terms=" + dictionary.size()
+                + ", compile=" + compileNanos / 1000000 + "ms"
+                + ", scan=" + throughput(text.length(), scanNanos) + " chars/s"
+                + " (" + visitor.count + " matches in " + text.length() + " chars)"
+                + ", bruteForce=" + throughput(shortText.length(), bruteNanos) + " chars/s");
+        assertTrue(visitor.count > 0);
+    }
+
+    private static long throughput(int chars, long nanos) {
+        return (long) (chars * 1e9 / Math.max(1, nanos));
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) (ALPHABET_START + random.nextInt(ALPHABET_SIZE)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 随机文本中每隔一段插入一个关键词
+     */
+    private static String createText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length + 8);
+        while (builder.length() < length) {
+            if (random.nextInt(10) == 0) {
+                builder.append(terms.get(random.nextInt(terms.size())));
+            } else {
+                builder.append((char) (ALPHABET_START + random.nextInt(ALPHABET_SIZE)));
+            }
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    private static long pack(int start, int end) {
+        return (long) end << 32 | start;
+    }
+
+    private static int start(long match) {
+        return (int) match;
+    }
+
+    private static int end(long match) {
+        return (int) (match >>> 32);
+    }
+
+    /**
+     * 暴力查找所有关键词的所有出现位置，按结束位置、起始位置排序，与scan的回调顺序一致
+     */
+    private static List<Long> bruteForce(String text) {
+        List<Long> matches = new ArrayList<>();
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(terms));
+        for (String term : unique) {
+            int index = text.indexOf(term);
+            while (index >= 0) {
+                matches.add(pack(index, index + term.length()));
+                index = text.indexOf(term, index + 1);
+            }
+        }
+        Collections.sort(matches);
+        return matches;
+    }
+
+    private static List<Long> scan(KeywordDictionary dictionary, String text, int from, int to) {
+        final List<Long> matches = new ArrayList<>();
+        dictionary.scan(text, from, to, new KeywordDictionary.Visitor() {
+            @Override
+            public boolean onMatch(int start, int end) {
+                matches.add(pack(start, end));
+                return true;
+            }
+        });
+        Collections.sort(matches);
+        return matches;
+    }
+
+    private static final class CountingVisitor implements KeywordDictionary.Visitor {
+        int count;
+
+        @Override
+        public boolean onMatch(int start, int end) {
+            count++;
+            return true;
+        }
+    }
+}
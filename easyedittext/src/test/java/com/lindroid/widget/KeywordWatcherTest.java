@@ -0,0 +1,112 @@
+package com.lindroid.widget;
+
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+import android.text.Editable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 关键词的增量检测、高亮和回调
+ */
+@RunWith(RobolectricTestRunner.class)
+public class KeywordWatcherTest {
+    private EasyEditText editText;
+
+    private final List<String> matches = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        editText = new EasyEditText(RuntimeEnvironment.application);
+        editText.setKeywordDictionary(KeywordDictionary.compile(Arrays.asList("bad", "worse"), false));
+        editText.addOnKeywordMatchListener(new EasyEditText.OnKeywordMatchListener() {
+            @Override
+            public void onKeywordMatch(@NonNull CharSequence text, int start, int end) {
+                matches.add(text.subSequence(start, end).toString());
+            }
+        });
+    }
+
+    @Test
+    public void typing_reportsOnlyNewMatches() {
+        editText.setText("a bad");
+        assertEquals(Arrays.asList("bad"), matches);
+        editText.getText().append(" and worse");
+        assertEquals(Arrays.asList("bad", "worse"), matches);
+    }
+
+    @Test
+    public void setHighlightColor_rebuildsSpansWithoutNotifying() {
+        editText.setText("bad, worse, bad");
+        assertEquals(3, matches.size());
+
+        editText.setKeywordHighlightColor(Color.RED);
+        assertEquals(3, matches.size());
+        assertEquals(3, highlights().length);
+
+        editText.setKeywordHighlightColor(Color.BLUE);
+        assertEquals(3, matches.size());
+        KeywordWatcher.KeywordSpan[] spans = highlights();
+        assertEquals(3, spans.length);
+        for (KeywordWatcher.KeywordSpan span : spans) {
+            assertEquals(Color.BLUE, span.getBackgroundColor());
+        }
+
+        editText.setKeywordHighlightColor(0);
+        assertEquals(0, highlights().length);
+        assertEquals(3, matches.size());
+    }
+
+    @Test
+    public void setHighlightColor_stillReportsLaterInput() {
+        editText.setKeywordHighlightColor(Color.RED);
+        editText.setText("bad");
+        assertEquals(Arrays.asList("bad"), matches);
+        assertEquals(1, highlights().length);
+    }
+
+    @Test
+    public void blocked_rejectsInsertionProducingKeyword() {
+        editText.setKeywordBlocked(true);
+        editText.setText("ba");
+        editText.getText().append("d");
+        assertEquals("ba", editText.getText().toString());
+        editText.getText().append("g");
+        assertEquals("bag", editText.getText().toString());
+    }
+
+    @Test
+    public void blocked_rejectsDeletionJoiningKeyword() {
+        editText.setKeywordBlocked(true);
+        editText.setText("ba-d");
+        editText.getText().delete(2, 3);
+        assertEquals("ba-d", editText.getText().toString());
+        //删除后不会拼出关键词时正常删除
+        editText.getText().delete(0, 1);
+        assertEquals("a-d", editText.getText().toString());
+    }
+
+    @Test
+    public void blocked_rejectsWholeReplacement() {
+        editText.setKeywordBlocked(true);
+        editText.setText("ba-d");
+        //插入的内容被拦截后，剩下的删除也会拼出关键词，整个替换都应被拒绝
+        editText.getText().replace(2, 3, "x bad");
+        assertEquals("ba-d", editText.getText().toString());
+    }
+
+    private KeywordWatcher.KeywordSpan[] highlights() {
+        Editable text = editText.getText();
+        return text.getSpans(0, text.length(), KeywordWatcher.KeywordSpan.class);
+    }
+}
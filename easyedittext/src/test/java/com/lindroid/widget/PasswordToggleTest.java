@@ -0,0 +1,221 @@
+package com.lindroid.widget;
+
+import android.app.Activity;
+import android.text.Editable;
+import android.text.InputType;
+import android.text.Layout;
+import android.text.SpanWatcher;
+import android.text.Spannable;
+import android.text.Spanned;
+import android.text.method.PasswordTransformationMethod;
+import android.text.style.UpdateLayout;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.util.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 明暗文切换：每次切换的重排次数、光标位置和自动切回暗文
+ * 重排次数通过统计UpdateLayout span的通知得到，DynamicLayout正是根据这些通知重排的
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PasswordToggleTest {
+    private static final String PASSWORD = "secret123";
+
+    private EasyEditText editText;
+
+    private final ReflowCounter reflows = new ReflowCounter();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        editText = new EasyEditText(activity);
+        activity.setContentView(editText, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+        editText.setShowPlainCipherToggle(true);
+        editText.setText(PASSWORD);
+        editText.setSelection(3);
+        layout();
+        Editable text = editText.getText();
+        text.setSpan(reflows, 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+    }
+
+    @Test
+    public void toggle_reflowsOnceWithoutNewLayout() {
+        Layout layout = editText.getLayout();
+        assertTrue(editText.isContentMasked());
+        assertNotEquals(PASSWORD, layout.getText().toString());
+
+        for (int i = 1; i <= 10; i++) {
+            reflows.count = 0;
+            boolean displayed = i % 2 == 1;
+            editText.setContentDisplayed(displayed);
+
+            assertEquals("toggle " + i, 1, reflows.count);
+            assertSame(layout, editText.getLayout());
+            assertFalse(editText.isLayoutRequested());
+            assertEquals(!displayed, editText.isContentMasked());
+            assertEquals(displayed, PASSWORD.equals(layout.getText().toString()));
+            assertNoInternalSpan();
+        }
+    }
+
+    @Test
+    public void toggle_keepsSelection() {
+        editText.setSelection(2, 5);
+        editText.setContentDisplayed(true);
+        assertEquals(2, editText.getSelectionStart());
+        assertEquals(5, editText.getSelectionEnd());
+        editText.setContentDisplayed(false);
+        assertEquals(2, editText.getSelectionStart());
+        assertEquals(5, editText.getSelectionEnd());
+    }
+
+    @Test
+    public void typingAfterToggle_doesNotReflowWholeText() {
+        editText.setContentDisplayed(true);
+        reflows.count = 0;
+        //一次插入多个字符，避免PasswordTransformationMethod显示最后一个字符的span参与统计
+        editText.getText().insert(PASSWORD.length(), "45");
+        assertEquals(0, reflows.count);
+        assertEquals(PASSWORD + "45", editText.getText().toString());
+        assertNoInternalSpan();
+    }
+
+    @Test
+    public void autoMask_firesAfterDelayAndRestartsOnInput() {
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        editText.setAutoMaskDelay(1000);
+        editText.setContentDisplayed(true);
+
+        scheduler.advanceBy(600, TimeUnit.MILLISECONDS);
+        assertTrue(editText.isContentDisplayed());
+        //显示明文期间输入会重新计时
+        editText.getText().insert(PASSWORD.length(), "45");
+        scheduler.advanceBy(600, TimeUnit.MILLISECONDS);
+        assertTrue(editText.isContentDisplayed());
+
+        reflows.count = 0;
+        scheduler.advanceBy(400, TimeUnit.MILLISECONDS);
+        assertFalse(editText.isContentDisplayed());
+        assertTrue(editText.isContentMasked());
+        assertEquals(1, reflows.count);
+        assertEquals(3, editText.getSelectionStart());
+        assertEquals(3, editText.getSelectionEnd());
+    }
+
+    @Test
+    public void autoMask_notScheduledWhileMasked() {
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        editText.setAutoMaskDelay(1000);
+        reflows.count = 0;
+        editText.getText().insert(PASSWORD.length(), "45");
+        scheduler.advanceBy(2000, TimeUnit.MILLISECONDS);
+        assertTrue(editText.isContentMasked());
+        assertEquals(0, reflows.count);
+    }
+
+    @Test
+    public void switchingMaskedToggleToText_showsPlainText() {
+        editText.setInputType(InputType.TYPE_CLASS_TEXT);
+        assertTrue(editText.isContentDisplayed());
+        assertFalse(editText.isContentMasked());
+        assertFalse(editText.getTransformationMethod() instanceof PasswordTransformationMethod);
+        assertFalse(editText.isRightIconShown());
+        //恢复默认字体会让TextView丢弃现有的Layout
+        layout();
+        assertEquals(PASSWORD, editText.getLayout().getText().toString());
+        assertEquals(3, editText.getSelectionStart());
+
+        //切换回密码类型后重新显示暗文和切换按钮
+        editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+        assertTrue(editText.isContentMasked());
+        assertFalse(editText.isContentDisplayed());
+        assertTrue(editText.isRightIconShown());
+    }
+
+    @Test
+    public void switchingToVisiblePassword_unmasksInPlace() {
+        Layout layout = editText.getLayout();
+        reflows.count = 0;
+        editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_VISIBLE_PASSWORD);
+
+        assertTrue(editText.isContentDisplayed());
+        assertFalse(editText.isContentMasked());
+        assertEquals(1, reflows.count);
+        assertSame(layout, editText.getLayout());
+        assertEquals(PASSWORD, layout.getText().toString());
+        assertTrue(editText.isRightIconShown());
+
+        //切换按钮仍然可用
+        editText.setContentDisplayed(false);
+        assertTrue(editText.isContentMasked());
+    }
+
+    @Test
+    public void switchingToText_cancelsAutoMask() {
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        editText.setAutoMaskDelay(1000);
+        editText.setContentDisplayed(true);
+        editText.setInputType(InputType.TYPE_CLASS_TEXT);
+        scheduler.advanceBy(2000, TimeUnit.MILLISECONDS);
+        assertTrue(editText.isContentDisplayed());
+        assertFalse(editText.isContentMasked());
+    }
+
+    private void layout() {
+        editText.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        editText.layout(0, 0, editText.getMeasuredWidth(), editText.getMeasuredHeight());
+    }
+
+    /**
+     * 切换明暗文不应在文本中留下任何span
+     */
+    private void assertNoInternalSpan() {
+        Editable text = editText.getText();
+        assertEquals(0, text.getSpans(0, text.length(), UpdateLayout.class).length);
+    }
+
+    /**
+     * 统计会导致DynamicLayout重排的通知
+     */
+    private static final class ReflowCounter implements SpanWatcher {
+        int count;
+
+        @Override
+        public void onSpanAdded(Spannable text, Object what, int start, int end) {
+            if (what instanceof UpdateLayout) {
+                count++;
+            }
+        }
+
+        @Override
+        public void onSpanRemoved(Spannable text, Object what, int start, int end) {
+            if (what instanceof UpdateLayout) {
+                count++;
+            }
+        }
+
+        @Override
+        public void onSpanChanged(Spannable text, Object what, int ostart, int oend, int nstart, int nend) {
+            if (what instanceof UpdateLayout) {
+                count++;
+            }
+        }
+    }
+}
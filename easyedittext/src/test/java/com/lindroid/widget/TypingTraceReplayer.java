@@ -0,0 +1,225 @@
+package com.lindroid.widget;
+
+import android.support.annotation.NonNull;
+import android.text.Editable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * @function 输入轨迹回放
+ * @Description 将{@link EasyEditText#stopTypingTrace()}录制的轨迹依次应用到输入框，
+ * 统计每次修改（包括所有监听和输入框自身的处理）的耗时分位数，以及回放期间当前线程分配的字节数。
+ * 在JVM（Robolectric）中运行，只用于测试，不随依赖库发布。
+ * 回放不等待录制时的时间间隔，输入框的监听、最大字数等配置由调用方事先设置好。
+ */
+final class TypingTraceReplayer {
+
+    private TypingTraceReplayer() {
+    }
+
+    /**
+     * 回放结果
+     */
+    public static final class Report {
+        private final long[] latencies;
+        private final long allocatedBytes;
+        private final long recordedDuration;
+
+        Report(long[] latencies, long allocatedBytes, long recordedDuration) {
+            this.latencies = latencies;
+            this.allocatedBytes = allocatedBytes;
+            this.recordedDuration = recordedDuration;
+        }
+
+        /**
+         * 回放的修改次数
+         */
+        public int getEventCount() {
+            return latencies.length;
+        }
+
+        /**
+         * 单次修改耗时的分位数，单位纳秒
+         *
+         * @param percentile:0到100之间
+         */
+        public long getLatencyPercentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        /**
+         * 回放期间分配的字节数，无法统计时为-1
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * 录制时第一个到最后一个事件的时长，单位纳秒
+         */
+        public long getRecordedDuration() {
+            return recordedDuration;
+        }
+
+        @Override
+        public String toString() {
+            return "events=" + getEventCount()
+                    + ", p50=" + getLatencyPercentile(50) + "ns"
+                    + ", p90=" + getLatencyPercentile(90) + "ns"
+                    + ", p99=" + getLatencyPercentile(99) + "ns"
+                    + ", max=" + getLatencyPercentile(100) + "ns"
+                    + ", allocated=" + allocatedBytes + "B";
+        }
+    }
+
+    /**
+     * 回放轨迹，需要在主线程调用
+     *
+     * @param trace:录制的轨迹
+     * @param editText:回放的目标输入框，原有内容会被替换为轨迹的初始文本
+     */
+    @NonNull
+    public static Report replay(@NonNull byte[] trace, @NonNull EasyEditText editText) throws IOException {
+        return replay(new ByteArrayInputStream(trace), editText);
+    }
+
+    /**
+     * 回放轨迹，需要在主线程调用
+     */
+    @NonNull
+    public static Report replay(@NonNull InputStream trace, @NonNull EasyEditText editText) throws IOException {
+        Reader reader = new Reader(trace);
+        for (byte b : TypingTraceRecorder.MAGIC) {
+            if (reader.readByte() != b) {
+                throw new IOException("Not a typing trace");
+            }
+        }
+        int version = reader.readByte();
+        if (version != TypingTraceRecorder.VERSION) {
+            throw new IOException("Unsupported trace version: " + version);
+        }
+        editText.setText(reader.readChars());
+
+        //先读出全部事件，避免回放计时包含解码的开销
+        int size = 0;
+        int[] starts = new int[64];
+        int[] befores = new int[64];
+        CharSequence[] inserts = new CharSequence[64];
+        long recordedDuration = 0;
+        boolean first = true;
+        while (true) {
+            int tag = reader.readByte();
+            if (tag == TypingTraceRecorder.TAG_END) {
+                break;
+            }
+            long delay = reader.readVarLong();
+            if (!first) {
+                recordedDuration += delay;
+            }
+            first = false;
+            if (tag == TypingTraceRecorder.TAG_BEFORE) {
+                reader.readVarInt();
+                reader.readVarInt();
+                reader.readVarInt();
+            } else if (tag == TypingTraceRecorder.TAG_CHANGE) {
+                if (size == starts.length) {
+                    starts = Arrays.copyOf(starts, size * 2);
+                    befores = Arrays.copyOf(befores, size * 2);
+                    inserts = Arrays.copyOf(inserts, size * 2);
+                }
+                starts[size] = reader.readVarInt();
+                befores[size] = reader.readVarInt();
+                inserts[size] = reader.readChars();
+                size++;
+            } else {
+                throw new IOException("Unknown event tag: " + tag);
+            }
+        }
+
+        long[] latencies = new long[size];
+        long allocatedBefore = threadAllocatedBytes();
+        for (int i = 0; i < size; i++) {
+            Editable text = editText.getText();
+            if (text == null) {
+                throw new IllegalStateException("EasyEditText has no editable text");
+            }
+            int start = Math.min(starts[i], text.length());
+            int end = Math.min(start + befores[i], text.length());
+            long begin = System.nanoTime();
+            text.replace(start, end, inserts[i]);
+            latencies[i] = System.nanoTime() - begin;
+        }
+        long allocatedAfter = threadAllocatedBytes();
+        Arrays.sort(latencies);
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return new Report(latencies, allocated, recordedDuration);
+    }
+
+    /**
+     * 当前线程分配的字节数，JVM不支持时返回-1
+     */
+    private static long threadAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * 变长整数解码
+     */
+    private static final class Reader {
+        private final InputStream in;
+
+        Reader(InputStream in) {
+            this.in = in;
+        }
+
+        int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of trace");
+            }
+            return b;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+                if (shift > 63) {
+                    throw new IOException("Malformed varint");
+                }
+            }
+        }
+
+        int readVarInt() throws IOException {
+            return (int) readVarLong();
+        }
+
+        CharSequence readChars() throws IOException {
+            int length = readVarInt();
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) readVarInt();
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.lindroid.widget;
+
+import android.text.Editable;
+import android.text.InputType;
+import android.text.method.PasswordTransformationMethod;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 输入轨迹的录制与回放
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TypingTraceTest {
+    private EasyEditText editText;
+
+    @Before
+    public void setUp() {
+        editText = new EasyEditText(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void recordAndReplay_reproducesEdits() throws IOException {
+        editText.setText("hi");
+        assertTrue(editText.startTypingTrace());
+        Editable text = editText.getText();
+        text.append(" there");
+        //模拟自动纠错的替换
+        text.replace(0, 2, "Hello");
+        text.delete(text.length() - 1, text.length());
+        text.insert(5, ",");
+        byte[] trace = editText.stopTypingTrace();
+        assertFalse(editText.isRecordingTypingTrace());
+        assertEquals("Hello, ther", editText.getText().toString());
+
+        EasyEditText target = new EasyEditText(RuntimeEnvironment.application);
+        target.setText("replaced by the initial text");
+        TypingTraceReplayer.Report report = TypingTraceReplayer.replay(trace, target);
+
+        System.out.println("TypingTraceReplayer: " + report);
+        assertEquals("Hello, ther", target.getText().toString());
+        assertEquals(4, report.getEventCount());
+        assertTrue(report.getRecordedDuration() >= 0);
+        assertTrue(report.getLatencyPercentile(50) >= 0);
+        assertTrue(report.getLatencyPercentile(50) <= report.getLatencyPercentile(90));
+        assertTrue(report.getLatencyPercentile(90) <= report.getLatencyPercentile(99));
+        assertTrue(report.getLatencyPercentile(99) <= report.getLatencyPercentile(100));
+        assertTrue(report.getAllocatedBytes() == -1 || report.getAllocatedBytes() > 0);
+    }
+
+    @Test
+    public void replay_usesTargetConfiguration() throws IOException {
+        assertTrue(editText.startTypingTrace());
+        editText.getText().append("abcdefgh");
+        byte[] trace = editText.stopTypingTrace();
+
+        EasyEditText target = new EasyEditText(RuntimeEnvironment.application);
+        target.setMaxCharacters(5);
+        TypingTraceReplayer.replay(trace, target);
+        assertEquals("abcde", target.getText().toString());
+    }
+
+    @Test
+    public void filteredInput_recordsWhatWasInserted() throws IOException {
+        editText.setMaxCharacters(3);
+        assertTrue(editText.startTypingTrace());
+        editText.getText().append("abcdef");
+        byte[] trace = editText.stopTypingTrace();
+
+        EasyEditText target = new EasyEditText(RuntimeEnvironment.application);
+        TypingTraceReplayer.Report report = TypingTraceReplayer.replay(trace, target);
+        assertEquals(1, report.getEventCount());
+        assertEquals("abc", target.getText().toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void replay_rejectsOtherData() throws IOException {
+        TypingTraceReplayer.replay(new byte[]{1, 2, 3, 4, 5}, editText);
+    }
+
+    @Test
+    public void passwordField_isNotRecorded() {
+        editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+        assertFalse(editText.startTypingTrace());
+        assertFalse(editText.isRecordingTypingTrace());
+        editText.getText().append("secret");
+        assertNull(editText.stopTypingTrace());
+    }
+
+    @Test
+    public void passwordTransformation_isNotRecorded() {
+        editText.setTransformationMethod(PasswordTransformationMethod.getInstance());
+        assertFalse(editText.startTypingTrace());
+        assertFalse(editText.isRecordingTypingTrace());
+    }
+
+    @Test
+    public void passwordWithFlags_isTreatedAsPassword() {
+        editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD
+                | InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+        editText.setShowPlainCipherToggle(true);
+        //isPwdType为true时才会显示明暗文切换按钮
+        assertTrue(editText.isRightIconShown());
+        assertFalse(editText.startTypingTrace());
+    }
+
+    @Test
+    public void switchingToPasswordTransformation_discardsTrace() {
+        assertTrue(editText.startTypingTrace());
+        editText.getText().append("user");
+        editText.setTransformationMethod(PasswordTransformationMethod.getInstance());
+        editText.getText().append("secret");
+        assertFalse(editText.isRecordingTypingTrace());
+        assertNull(editText.stopTypingTrace());
+    }
+
+    @Test
+    public void switchingToPassword_discardsTrace() {
+        assertTrue(editText.startTypingTrace());
+        editText.getText().append("user");
+        editText.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+        editText.getText().append("secret");
+        assertFalse(editText.isRecordingTypingTrace());
+        assertNull(editText.stopTypingTrace());
+    }
+}